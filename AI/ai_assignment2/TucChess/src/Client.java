@@ -7,6 +7,8 @@ import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.Random;
 
+import bitboard.Move;
+
 public class Client
 {
 	private static final int PORTServer = 9876;
@@ -122,7 +124,7 @@ public class Client
 						// beginning of the game
 						if(myColor == 0)
 						{
-							String action = world.selectAction();
+							int action = world.selectAction();
 							
 							try
 							{
@@ -136,7 +138,7 @@ public class Client
 								System.out.println(e.getClass().getName() + " : " + e.getMessage());
 							}
 							
-							sendData = action.getBytes("UTF-8");
+							sendData = Move.toText(action).getBytes("UTF-8");
 							sendPacket.setData(sendData);
 							sendPacket.setLength(sendData.length);
 							clientSocket.send(sendPacket);
@@ -146,6 +148,8 @@ public class Client
 					}
 					else	// secondLetter.equals("E") - the game has ended
 					{
+						world.stopPondering();
+						
 						scoreWhite = Integer.parseInt(Character.toString(receivedMsg.charAt(2))
 								                    + Character.toString(receivedMsg.charAt(3)));
 						
@@ -203,7 +207,7 @@ public class Client
 					
 					if(nextPlayer==myColor)
 					{
-						String action = world.selectAction();
+						int action = world.selectAction();
 						
 						try
 						{
@@ -217,13 +221,15 @@ public class Client
 							System.out.println(e.getClass().getName() + " : " + e.getMessage());
 						}
 						
-						sendData = action.getBytes("UTF-8");
+						sendData = Move.toText(action).getBytes("UTF-8");
 						sendPacket.setData(sendData);
 						sendPacket.setLength(sendData.length);
 						clientSocket.send(sendPacket);			
 					}
 					else
 					{
+						// our move is on the board, think while the opponent does
+						world.startPondering();
 						continue;
 					}				
 				}
@@ -252,9 +258,13 @@ public class Client
 		Client client = new Client();
 
 		// optionally adding delay to response
-		if(args.length == 1)
+		if(args.length >= 1)
 			client.delay = Integer.parseInt(args[0]);
 		
+		// optionally setting the milliseconds the search may use for a move
+		if(args.length >= 2)
+			client.world.setTimeBudget(Long.parseLong(args[1]));
+		
 		// send the first message - my name
 		client.sendName();
 
@@ -3,6 +3,14 @@ import java.util.ArrayList;
 import java.util.Iterator;
 //import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import bitboard.Move;
+import bitboard.MoveStack;
+import bitboard.Position;
 
 /*
  * Constructor of minimax
@@ -15,16 +23,62 @@ public class Minimax {
 	private int rows = 7;
 	private int columns = 5;
 	private World game;
-	private String[][] tmpBoard ;
+	private Position tmpBoard ;
 	public static int MAX = 1000000;
-	public int scoreWhite = 0;
-	public int scoreBlack = 0;
-	boolean ABPrunning = false;
+	// alpha beta with iterative deepening under the time budget, the default; -Dtucchess.alphaBeta=false
+	// runs the plain minimax to depth 5 instead, which takes no account of the time budget
+	public static boolean ALPHA_BETA = !"false".equals(System.getProperty("tucchess.alphaBeta"));
+	boolean ABPrunning = ALPHA_BETA;
+	private MoveStack moveStack;	// the move array of every ply
+	private int ply = 0;			// distance of the current node from the root
+	private int bestMove = Move.NONE;	// best move found at the root
+	long nodes = 0;					// visited nodes, for measuring the search
+	// size of the transposition table in MB, -Dtucchess.hashMB=<MB> changes it
+	public static int HASH_MB = Integer.getInteger("tucchess.hashMB", 16);
+	private TranspositionTable table;	// kept for the whole game, shared by every search
+	public static final int MAX_DEPTH = MoveStack.MAX_PLY - 1;
+	private long timeBudget = 2000;	// milliseconds the iterative deepening may use for a move
+	private long deadline;			// when the running search has to stop
+	private int completedDepth;		// deepest iteration finished by the running search
+	private boolean aborted;		// the running iteration ran out of time
+	boolean useMoveOrdering = true;	// false tries the moves in board order, after the hash move
+	MoveOrdering ordering;
+	boolean useQuiescence = true;	// false evaluates the horizon nodes as they are
+	// threads of the alpha beta search, -Dtucchess.threads=<threads> changes it
+	public static int THREADS = Integer.getInteger("tucchess.threads", 1);
+	private int threads = THREADS;
+	public static final int ROOT_SPLIT = 0;	// the root moves are split between the threads
+	public static final int LAZY_SMP = 1;	// helper threads search the same root, sharing only the transposition table
+	// how more than one thread search, -Dtucchess.parallel=split|lazysmp changes it
+	public static int PARALLEL = "lazysmp".equals(System.getProperty("tucchess.parallel")) ? LAZY_SMP : ROOT_SPLIT;
+	private int parallelMode = PARALLEL;
+	private volatile boolean stopped;	// set by the main search to stop a lazy SMP helper
+	private final ArrayList<Minimax> helpers = new ArrayList<Minimax>();
+	private final ArrayList<ForkJoinTask<?>> helperTasks = new ArrayList<ForkJoinTask<?>>();
+	// search on the opponent's time, -Dtucchess.ponder=true turns it on
+	public static boolean PONDER = Boolean.getBoolean("tucchess.ponder");
+	private Minimax ponderer;		// the worker searching the position after the predicted reply
+	private Thread ponderThread;	// the thread of the ponderer, null when not pondering
+	private long ponderKey;			// Zobrist key of the position the ponderer searches
+	private boolean ponderHit;		// the opponent played the predicted reply, the table is kept as it is
+	private ForkJoinPool pool;		// created with the first parallel search
+	private int searchNumber;		// counts the searches, on a worker the search its move ordering was last reset for
+	// searchers of the root moves, every one with its own board, move arrays and move ordering
+	private final ConcurrentLinkedQueue<Minimax> workers = new ConcurrentLinkedQueue<Minimax>();
+
 	public Minimax(World game) {
-		tmpBoard = new String[rows][columns];
-		for(int i=0; i < rows; i++)
-			for(int j=0; j < columns; j++)
-				tmpBoard[i][j]= " ";
+		this(game, new TranspositionTable(HASH_MB));
+	}
+
+	/**
+	 * @param game the world
+	 * @param table the transposition table, the workers of a parallel search share the one of the main search
+	 */
+	private Minimax(World game, TranspositionTable table) {
+		tmpBoard = new Position();
+		moveStack = new MoveStack();
+		this.table = table;
+		ordering = new MoveOrdering();
 		this.game = game;
 	}
 
@@ -34,141 +88,424 @@ public class Minimax {
 	
 	/**
 	 *  Function that executes a move to tmpBoard
-	 * @param move is string that represents from which coordinates we are going to take a apwn and move it to its new coordinates
-	 * @param color of the player moving a pawn
-	 */
-	public void makeMove(String move, int color) {
-		int x1 = Integer.parseInt(move.substring(0, 1));
-		int y1 = Integer.parseInt(move.substring(1, 2));
-		int x2 = Integer.parseInt(move.substring(2, 3));
-		int y2 = Integer.parseInt(move.substring(3, 4));
-		String chesspart = "";
-
-		chesspart = Character.toString(tmpBoard[x1][y1].charAt(1));
-
-		boolean pawnLastRow = false;
-
-		// check if it is a move that has made a move to the last line
-		if(chesspart.equals("P"))
-			if( ((x1==rows-2 && x2==rows-1) && color == 0) || ((x1==1 && x2==0) && color == 1) )
-			{
-				tmpBoard[x2][y2] = " ";	// in a case an opponent's chess part has just been captured
-				tmpBoard[x1][y1] = " ";
-				pawnLastRow = true;
-				if (color == 0) {
-					scoreWhite++;
-				}
-				else
-					scoreBlack++;
-			}
+	 * @param move the packed move, from which coordinates we are going to take a apwn and move it to its new coordinates
+	 * @return the undo record that takes the move back
+	 */
+	public int makeMove(int move) {
+		return tmpBoard.makeMove(move);
+	}
 
-		if (tmpBoard[x2][y2].equals("P")) {
-			if(color == 0)
-				scoreWhite++;
-			else
-				scoreBlack++;
-		}
+	/**
+	 * Function that generates a random number between a given range 
+	 * @param min bottom of range
+	 * @param max top of range
+	 * @return the random number that we generated
+	 */
+	public int randomNumberGenerator(int min, int max) {
+		Random ran =new Random();
+		return ran.nextInt(max-min+1)+min;
+	}
 
 
-		// otherwise
-		if(!pawnLastRow)
-		{
-			if(chesspart.equals("P")) {
-				if (color == 0) {
-					scoreWhite++;
-				}
-				else
-					scoreBlack++;
-			}
-			else if(chesspart.equals("K")) {
-				if (color == 0) {
-					scoreWhite+=8;
-				}
-				else
-					scoreBlack+=8;
-			}
-			else if(chesspart.equals("R")) {
-				if (color == 0) {
-					scoreWhite+=3;
-				}
-				else
-					scoreBlack+=3;
+	/**
+	 * undo a move previously done 
+	 * @param move the packed move
+	 * @param undo the undo record makeMove returned
+	 */
+	public void unmakeMove(int move, int undo) {
+		tmpBoard.unmakeMove(move, undo);
+	}
+
+	/**
+	 * Function chooses which algorithm is going to be executed
+	 * * If ABPrunning is true, the default, starts minimax with AB Prunning and iterative deepening under the time budget
+	 * * Else simple minimax to depth 5
+	 * @return the move that we are going to execute
+	 */
+	public int selectMiniMax() {
+		stopPondering();
+		if (ABPrunning)
+			return iterativeDeepening(game.getMyColor());
+		prepareSearch();
+		Node node = miniMaxAlgo(5,game.getMyColor());
+		//System.out.println(node.move);
+		return node.move; 
+	}
+
+	/**
+	 * sets tmpBoard to the board and the scores of the game
+	 */
+	private void prepareSearch() {
+		// after a ponder hit the entries of the pondering are as new as the ones this search writes
+		if (!ponderHit)
+			table.newSearch();
+		ponderHit = false;
+		ordering.newSearch();
+		searchNumber++;
+		tmpBoard.copyFrom(game.getBoard());
+		tmpBoard.setScores(game.scoreWhite, game.scoreBlack);
+		tmpBoard.setColor(game.getMyColor());
+		ply = 0;
+		completedDepth = 0;
+		aborted = false;
+	}
+
+	/**
+	 * replaces the transposition table with a new one
+	 * @param megabytes the size of the new table
+	 */
+	public void setTranspositionTableSize(int megabytes) {
+		table = new TranspositionTable(megabytes);
+		workers.clear();
+	}
+
+	/**
+	 * @param threads the threads of the alpha beta search, 1 searches serially
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+		if (pool != null)
+			pool.shutdown();
+		pool = null;
+		workers.clear();
+	}
+
+	/**
+	 * Pondering: called once our move is on the board, while the opponent thinks.
+	 * The reply the last search expects, the best move of the transposition table for the
+	 * opponent, is made on tmpBoard and a worker searches the position after it on a
+	 * thread of its own, with iterative deepening and no deadline, until stopPondering
+	 */
+	public void startPondering() {
+		if (!PONDER || !ABPrunning || ponderThread != null)
+			return;
+		int opponent = changeColor(game.getMyColor());
+		tmpBoard.copyFrom(game.getBoard());
+		tmpBoard.setScores(game.scoreWhite, game.scoreBlack);
+		tmpBoard.setColor(opponent);
+		if (gameOver())
+			return;
+		long entry = table.probe(tmpBoard.getKey());
+		int predicted = entry != 0 ? TranspositionTable.move(entry) : Move.NONE;
+		if (!isLegal(predicted, opponent))
+			return;
+
+		tmpBoard.makeMove(predicted);
+		ponderKey = tmpBoard.getKey();
+		table.newSearch();
+		deadline = Long.MAX_VALUE;
+		searchNumber++;
+		final Minimax worker = borrowWorker();
+		final int color = game.getMyColor();
+		ponderer = worker;
+		ponderThread = new Thread(new Runnable() {
+			public void run() {
+				worker.helperSearch(1, color);
 			}
-			tmpBoard[x2][y2] = tmpBoard[x1][y1];
-			tmpBoard[x1][y1] = " ";
+		}, "ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+		System.out.println("Pondering on " + Move.toText(predicted));
+	}
+
+	/**
+	 * Stops the pondering, if any, once the opponent's move is on the board of the game.
+	 * If the opponent played the predicted reply (and no prize changed the board) the
+	 * position is the one the ponderer searched: the next search finds its results in the
+	 * transposition table and goes through the depths the ponderer completed almost for free.
+	 * Otherwise the pondering is thrown away
+	 */
+	public void stopPondering() {
+		if (ponderThread == null)
+			return;
+		ponderer.stopped = true;
+		try {
+			ponderThread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		tmpBoard.copyFrom(game.getBoard());
+		tmpBoard.setColor(game.getMyColor());
+		ponderHit = tmpBoard.getKey() == ponderKey;
+		System.out.println(ponderHit ? "Ponder hit, pondered to depth " + ponderer.completedDepth : "Ponder miss");
+		workers.add(ponderer);
+		ponderer = null;
+		ponderThread = null;
+	}
 
+	/**
+	 * @param move a move read from the transposition table
+	 * @param color the color of the player to move on tmpBoard
+	 * @return true if the move is one of the moves of the player on tmpBoard
+	 */
+	private boolean isLegal(int move, int color) {
+		if (move == Move.NONE)
+			return false;
+		int[] moves = moveStack.get(0);
+		int nMoves = moveStack.generate(tmpBoard, color, 0);
+		for (int i = 0; i < nMoves; i++)
+			if (moves[i] == move)
+				return true;
+		return false;
+	}
 
-		//		// check if a prize has been added in the game
-		//		if(prizeX != noPrize)
-		//			board[prizeX][prizeY] = "P";
-		//	}
+	/**
+	 * @param alphaBeta true for alpha beta with iterative deepening under the time budget, false for the plain minimax to depth 5
+	 */
+	public void setAlphaBeta(boolean alphaBeta) {
+		ABPrunning = alphaBeta;
+	}
 
+	/**
+	 * @param timeBudget the milliseconds the search may use for every move, with alpha beta
+	 */
+	public void setTimeBudget(long timeBudget) {
+		this.timeBudget = timeBudget;
+	}
 
+	/**
+	 * @param parallelMode ROOT_SPLIT or LAZY_SMP, how the threads share the search when there are more than one
+	 */
+	public void setParallelMode(int parallelMode) {
+		this.parallelMode = parallelMode;
+	}
+
+	/**
+	 * Iterative deepening: alpha beta to depth 1, 2, 3... until the time budget runs out.
+	 * Every iteration tries first the moves the previous one found best, through the
+	 * transposition table. An iteration that runs out of time is abandoned and the best
+	 * move of the last completed iteration is returned
+	 * @param color the color of the player to move
+	 * @return the best move
+	 */
+	int iterativeDeepening(int color) {
+		prepareSearch();
+		long start = System.currentTimeMillis();
+		deadline = start + timeBudget;
+		int move = Move.NONE;
+		startHelpers(color);
+		for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+			bestMove = Move.NONE;
+			searchRoot(depth, color);
+			if (aborted)
+				break;
+			move = bestMove;
+			completedDepth = depth;
+			// the next iteration would not finish in the time left
+			if (System.currentTimeMillis() - start > timeBudget / 2)
+				break;
+		}
+		stopHelpers();
+		System.out.println("Searched to depth " + completedDepth + " in " + (System.currentTimeMillis() - start) + " ms");
+		return move;
+	}
 
+	/**
+	 * Runs alpha beta from the current game board to a fixed depth
+	 * @param depth the depth of the search
+	 * @param color the color of the player to move
+	 * @return the best move
+	 */
+	int searchFixedDepth(int depth, int color) {
+		prepareSearch();
+		deadline = Long.MAX_VALUE;	// no time limit, for the lazy SMP helpers too
+		bestMove = Move.NONE;
+		startHelpers(color);
+		searchRoot(depth, color);
+		stopHelpers();
+		return bestMove;
+	}
 
-		//	tmpBoard[a][b] = " ";
-		//	if (tmpBoard[c][d].equals("P")) {
-		//		if(randomNumberGenerator(1, 100) > 5) {
-		//			if (color == 0) 
-		//				scoreWhite+=1;
-		//			else
-		//				scoreBlack+=1;
-		//		}
-		//	}
+	/**
+	 * searches the root of tmpBoard serially or in parallel, depending on the threads
+	 * @param depth the depth of the search
+	 * @param color the color of the player to move
+	 * @return the value of the root, the best move is kept in bestMove
+	 */
+	private int searchRoot(int depth, int color) {
+		if (threads > 1 && parallelMode == ROOT_SPLIT)
+			return parallelAlphaBeta(depth, color);
+		return alphaBetaPrunning(depth, color, -MAX, +MAX);
+	}
 
+	/**
+	 * Alpha beta with the root moves split between threads. The moves are ordered and the
+	 * first one, the most likely best, is searched alone on this thread; its value is the bound
+	 * the rest of the moves are searched with, in parallel on the fork join pool
+	 * (young brothers wait for the eldest, at the root only).
+	 * Every worker searches on its own board and move arrays, all of them share the transposition table
+	 * @param depth the depth of the search
+	 * @param color the color of the player to move
+	 * @return the value of the root, the best move is kept in bestMove
+	 */
+	private int parallelAlphaBeta(final int depth, final int color) {
+		nodes++;
+		if (gameOver() || depth == 0)
+			return alphaBetaPrunning(depth, color, -MAX, +MAX);
+		long key = tmpBoard.getKey();
+		int pathScore = tmpBoard.getScore(Position.WHITE) - tmpBoard.getScore(Position.BLACK);
+		long entry = table.probe(key);
+		int hashMove = entry != 0 ? TranspositionTable.move(entry) : Move.NONE;
+
+		int[] rootMoves = moveStack.get(0);
+		int nMoves = moveStack.generate(tmpBoard, color, 0);
+		if (nMoves == 0)
+			return alphaBetaPrunning(depth, color, -MAX, +MAX);
+		ordering.score(rootMoves, nMoves, 0, hashMove);
+		for (int i = 0; i < nMoves; i++)
+			ordering.next(rootMoves, nMoves, i, 0);
+
+		int move = rootMoves[0];
+		int undo = makeMove(move);
+		ply++;
+		int value = alphaBetaPrunning(depth-1, changeColor(color), -MAX, +MAX);
+		ply--;
+		unmakeMove(move, undo);
+		if (aborted)
+			return 0;
+
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+		final Node best = new Node(move, value);
+		final ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 1; i < nMoves; i++) {
+			final int rootMove = rootMoves[i];
+			tasks.add(new RecursiveAction() {
+				protected void compute() {
+					searchRootMove(rootMove, depth, color, best);
+				}
+			});
+		}
+		pool.invoke(new RecursiveAction() {
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+		if (aborted)
+			return 0;
 
-		// add new prize
-		//				if (randomNumberGenerator(1, 100) < 20) {
-		//					while(true) {
-		//						int i = randomNumberGenerator(0, 6);
-		//						int j = randomNumberGenerator(0, 4);
-		//						if (tmpBoard[i][j].equals(" ")) 
-		//							break;
-		//						System.out.println("try to find  empty space to put prize");
-		//					}
-		//				}
-		// tmpBoard[c][d] = pawn;
+		bestMove = best.move;
+		table.store(key, depth, TranspositionTable.EXACT, best.value - pathScore, best.move);
+		return best.value;
 	}
 
 	/**
-	 * Function that generates a random number between a given range 
-	 * @param min bottom of range
-	 * @param max top of range
-	 * @return the random number that we generated
+	 * Searches a root move on a worker, with the best value found so far as the bound:
+	 * a move that does better gets its exact value and becomes the best
+	 * @param move the root move
+	 * @param depth the depth of the search
+	 * @param color the color of the player to move at the root
+	 * @param best the best move and value so far, shared by the workers
 	 */
-	public int randomNumberGenerator(int min, int max) {
-		Random ran =new Random();
-		return ran.nextInt(max-min+1)+min;
+	private void searchRootMove(int move, int depth, int color, Node best) {
+		Minimax worker = borrowWorker();
+		worker.completedDepth = completedDepth;
+		int a = -MAX;
+		int b = MAX;
+		synchronized (best) {
+			if (color == 0)
+				a = best.value;
+			else
+				b = best.value;
+		}
+
+		int undo = worker.makeMove(move);
+		worker.ply = 1;
+		int value = worker.alphaBetaPrunning(depth-1, changeColor(color), a, b);
+		worker.ply = 0;
+		worker.unmakeMove(move, undo);
+
+		synchronized (best) {
+			nodes += worker.nodes;
+			if (worker.aborted)
+				aborted = true;
+			else if (color == 0 ? value > best.value : value < best.value) {
+				best.value = value;
+				best.move = move;
+			}
+		}
+		workers.add(worker);
+	}
+
+	/**
+	 * @return a worker set to the board and the deadline of this search, with the usual move order.
+	 * The first time a search borrows it, its killers are forgotten and its history aged as the ones of the main search
+	 */
+	private Minimax borrowWorker() {
+		Minimax worker = workers.poll();
+		if (worker == null)
+			worker = new Minimax(game, table);
+		if (worker.searchNumber != searchNumber) {
+			worker.ordering.newSearch();
+			worker.ordering.setVariation(0);
+			worker.searchNumber = searchNumber;
+		}
+		worker.tmpBoard.copyFrom(tmpBoard);
+		worker.deadline = deadline;
+		worker.completedDepth = 0;
+		worker.aborted = false;
+		worker.stopped = false;
+		worker.nodes = 0;
+		worker.ply = 0;
+		return worker;
 	}
 
+	/**
+	 * Lazy SMP: starts the helper threads, every one runs iterative deepening on its own copy
+	 * of the root until stopHelpers. Half of them start one ply deeper and every one orders the
+	 * quiet moves a little differently, so that they fill the shared transposition table with
+	 * entries the main search can use instead of all searching the same nodes
+	 * @param color the color of the player to move
+	 */
+	private void startHelpers(final int color) {
+		if (threads <= 1 || parallelMode != LAZY_SMP)
+			return;
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+		for (int i = 1; i < threads; i++) {
+			final Minimax helper = borrowWorker();
+			final int startDepth = 1 + (i & 1);
+			helper.ordering.setVariation(i);
+			helpers.add(helper);
+			helperTasks.add(pool.submit(new Runnable() {
+				public void run() {
+					helper.helperSearch(startDepth, color);
+				}
+			}));
+		}
+	}
 
 	/**
-	 * undo a move previously done 
-	 * @param oldBoard the old board
+	 * stops the lazy SMP helpers and waits for them. They go back to the workers with the usual move order,
+	 * for the root split searches that borrow them later
 	 */
-	public void undoMove(String[][] oldBoard) {
-		tmpBoard = equalBoards(oldBoard);
+	private void stopHelpers() {
+		for (Minimax helper : helpers)
+			helper.stopped = true;
+		for (ForkJoinTask<?> task : helperTasks)
+			task.join();
+		for (Minimax helper : helpers) {
+			nodes += helper.nodes;
+			helper.ordering.setVariation(0);
+			workers.add(helper);
+		}
+		helpers.clear();
+		helperTasks.clear();
 	}
 
 	/**
-	 * Function chooses which algorithm is going to be executed
-	 * * If ABPrunning is true starts minimax with AB Prunning
-	 * * Else simple minimax
-	 * @return the move that we are going to execute
+	 * iterative deepening of a lazy SMP helper or of the ponderer, it stops when it is stopped
+	 * @param startDepth the depth of the first iteration
+	 * @param color the color of the player to move
 	 */
-	public String selectMiniMax() {
-		scoreWhite = game.scoreWhite;
-		scoreBlack = game.scoreBlack;
-		Node node;
-		tmpBoard =equalBoards(game.getBoard());
-		if (ABPrunning) {
-			node = alphaBetaPrunning(7, game.getMyColor(), -MAX, +MAX);
+	private void helperSearch(int startDepth, int color) {
+		for (int depth = startDepth; depth <= MAX_DEPTH; depth++) {
+			alphaBetaPrunning(depth, color, -MAX, +MAX);
+			if (aborted)
+				return;
+			completedDepth = depth;
 		}
-		else
-			node = miniMaxAlgo(5,game.getMyColor());
-		//System.out.println(node.move);
-		return node.move; 
 	}
 
 	/**
@@ -178,40 +515,27 @@ public class Minimax {
 	 * @return the node that represents the best possible move for the specific depth. This depends on our heuristic function
 	 */
 	public Node miniMaxAlgo(int depth, int color) {
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String[][] oldBoard = equalBoards(tmpBoard);
+		nodes++;
 		int minMaxValue = 0;
-		String bestMove = " ";
+		int bestMove = Move.NONE;
+		if (depth == 0 && useQuiescence)
+			return new Node(Move.NONE, quiescence(color, -MAX, MAX));
 		if ( gameOver() || depth == 0) 
-			return new  Node(null, evaluateScore(tmpBoard, color));
-
-		if (color == 0) {
-			availableMoves = getMoves(tmpBoard,color);
-			minMaxValue = -MAX;
-			for (String move : availableMoves) {
-				oldBoard = equalBoards(tmpBoard);
-				makeMove(move,color);
-				Node node = miniMaxAlgo(depth-1, changeColor(color));
-				tmpBoard = equalBoards(oldBoard);
-				if (node.value > minMaxValue) {
-					minMaxValue = node.value;
-					bestMove = move;
-				}
-			}
-		}
-		else {
-			availableMoves = getMoves(tmpBoard, color);
-			minMaxValue = MAX;
-			for (String move : availableMoves) {
-				oldBoard = equalBoards(tmpBoard);
-				makeMove(move,color);
-				// color has already changed
-				Node node = miniMaxAlgo(depth-1, changeColor(color));
-				tmpBoard = equalBoards(oldBoard);
-				if (node.value < minMaxValue) {
-					minMaxValue = node.value;
-					bestMove = move;
-				}
+			return new  Node(Move.NONE, evaluateScore(tmpBoard, Position.WHITE));
+
+		int[] availableMoves = moveStack.get(ply);
+		int nMoves = getMoves(tmpBoard, color, availableMoves);
+		minMaxValue = color == 0 ? -MAX : MAX;
+		for (int i = 0; i < nMoves; i++) {
+			int move = availableMoves[i];
+			int undo = makeMove(move);
+			ply++;
+			Node node = miniMaxAlgo(depth-1, changeColor(color));
+			ply--;
+			unmakeMove(move, undo);
+			if (color == 0 ? node.value > minMaxValue : node.value < minMaxValue) {
+				minMaxValue = node.value;
+				bestMove = move;
 			}
 		}
 
@@ -219,60 +543,188 @@ public class Minimax {
 	}
 
 	/**
-	 * Function for abprunning
+	 * Function for abprunning. The move arrays of every ply are allocated once and
+	 * the single tmpBoard is changed by make/unmake, so that the search does not allocate anything per node.
+	 * Every node is looked up in the transposition table, for a cutoff or for the move to try first,
+	 * the rest of the moves are tried in the order MoveOrdering gives.
+	 * Once an iteration has completed, the clock is checked every 1024 nodes and the search is
+	 * abandoned when the deadline has passed
 	 * @param depth of the tree
 	 * @param color of the player
 	 * @param a the a of ABprunning
 	 * @param b the b of ABprunning
-	 * @return node that represents best possible move 
+	 * @return the value of the best possible move, the move itself is kept in bestMove at the root
 	 */
-	public Node alphaBetaPrunning(int depth, int color, int a, int b) {
-		double start = System.currentTimeMillis();
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String[][] oldBoard = equalBoards(tmpBoard);
-		int minMaxValue = 0;
-		String bestMove = " ";
+	public int alphaBetaPrunning(int depth, int color, int a, int b) {
+		nodes++;
+		if (outOfTime())
+			return 0;
+		if (depth == 0 && useQuiescence)
+			return quiescence(color, a, b);
 		if ( gameOver() || depth == 0) 
-			return new  Node(null, evaluateScore(tmpBoard, color));
+			return evaluateScore(tmpBoard, Position.WHITE);
+
+		// the table keeps values without the score gathered before the node, it depends on the path
+		long key = tmpBoard.getKey();
+		int pathScore = tmpBoard.getScore(Position.WHITE) - tmpBoard.getScore(Position.BLACK);
+		int hashMove = Move.NONE;
+		long entry = table.probe(key);
+		if (entry != 0) {
+			hashMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int value = TranspositionTable.score(entry) + pathScore;
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT)
+					return value;
+				if (bound == TranspositionTable.LOWER && value > a)
+					a = value;
+				else if (bound == TranspositionTable.UPPER && value < b)
+					b = value;
+				if (b <= a)
+					return value;
+			}
+		}
+		int oldA = a;
+		int oldB = b;
 
-		if (color == 0) {
-			availableMoves = getMoves(tmpBoard,color);
-			minMaxValue = -MAX;
-			for (String move : availableMoves) {
-				oldBoard = equalBoards(tmpBoard);
-				makeMove(move,color);
-				Node node = alphaBetaPrunning(depth-1, changeColor(color), a, b);
-				tmpBoard = equalBoards(oldBoard);
-				if (node.value > minMaxValue) {
-					minMaxValue = node.value;
-					bestMove = move;
+		int[] availableMoves = moveStack.get(ply);
+		int nMoves = getMoves(tmpBoard, color, availableMoves);
+		if (useMoveOrdering)
+			ordering.score(availableMoves, nMoves, ply, hashMove);
+		else
+			putFirst(availableMoves, nMoves, hashMove);
+		int minMaxValue = color == 0 ? -MAX : MAX;
+		int nodeBestMove = Move.NONE;
+		for (int i = 0; i < nMoves; i++) {
+			int move = useMoveOrdering ? ordering.next(availableMoves, nMoves, i, ply) : availableMoves[i];
+			if (i == 0)
+				nodeBestMove = move;
+			int undo = makeMove(move);
+			ply++;
+			int value = alphaBetaPrunning(depth-1, changeColor(color), a, b);
+			ply--;
+			unmakeMove(move, undo);
+			if (aborted)
+				return 0;
+			if (color == 0) {
+				if (value > minMaxValue) {
+					minMaxValue = value;
+					nodeBestMove = move;
+				}
+				if (a < value) 
+					a = value;
+			}
+			else {
+				if (value < minMaxValue) {
+					minMaxValue = value;
+					nodeBestMove = move;
 				}
-				if (a < node.value) 
-					a = node.value;
-				if(b <= a)
-					break;
+				if(b > value)
+					b = value;
 			}
+			if(b <= a) {
+				ordering.cutoff(move, i, ply, depth);
+				break;
+			}
+		}
+		if (ply == 0)
+			bestMove = nodeBestMove;
+
+		int bound = TranspositionTable.EXACT;
+		if (minMaxValue <= oldA)
+			bound = TranspositionTable.UPPER;
+		else if (minMaxValue >= oldB)
+			bound = TranspositionTable.LOWER;
+		table.store(key, depth, bound, minMaxValue - pathScore, nodeBestMove);
+		return minMaxValue;
+	}
+
+	/**
+	 * Quiescence search at the horizon of alpha beta: only the moves that gain score are
+	 * searched (captures, prizes and pawns reaching the last row), until the position is quiet.
+	 * The player to move may stand pat, keep the evaluation of the position as it is,
+	 * instead of making any of these moves
+	 * @param color of the player
+	 * @param a the a of ABprunning
+	 * @param b the b of ABprunning
+	 * @return the value of the position once quiet
+	 */
+	private int quiescence(int color, int a, int b) {
+		int standPat = evaluateScore(tmpBoard, Position.WHITE);
+		if (gameOver() || ply >= MoveStack.MAX_PLY - 1)
+			return standPat;
+		if (color == 0) {
+			if (standPat >= b)
+				return standPat;
+			if (standPat > a)
+				a = standPat;
 		}
 		else {
-			availableMoves = getMoves(tmpBoard, color);
-			minMaxValue = MAX;
-			for (String move : availableMoves) {
-				oldBoard = equalBoards(tmpBoard);
-				makeMove(move,color);
-				// color has alrady changed
-				Node node = alphaBetaPrunning(depth-1, changeColor(color), a , b);
-				tmpBoard = equalBoards(oldBoard);
-				if (node.value < minMaxValue) {
-					minMaxValue = node.value;
-					bestMove = move;
-				}
-				if(b > node.value)
-					b = node.value;
-				if(b <= a)
-					break;
+			if (standPat <= a)
+				return standPat;
+			if (standPat < b)
+				b = standPat;
+		}
+
+		int[] captures = moveStack.get(ply);
+		int nMoves = moveStack.generateCaptures(tmpBoard, color, ply);
+		ordering.score(captures, nMoves, ply, Move.NONE);
+		int minMaxValue = standPat;
+		for (int i = 0; i < nMoves; i++) {
+			int move = ordering.next(captures, nMoves, i, ply);
+			int undo = makeMove(move);
+			ply++;
+			nodes++;
+			int value = outOfTime() ? 0 : quiescence(changeColor(color), a, b);
+			ply--;
+			unmakeMove(move, undo);
+			if (aborted)
+				return 0;
+			if (color == 0) {
+				if (value > minMaxValue)
+					minMaxValue = value;
+				if (a < value)
+					a = value;
+			}
+			else {
+				if (value < minMaxValue)
+					minMaxValue = value;
+				if (b > value)
+					b = value;
+			}
+			if (b <= a)
+				break;
+		}
+		return minMaxValue;
+	}
+
+	/**
+	 * Every 1024 nodes checks if the search has been stopped and, once an iteration
+	 * has completed, if it has passed its deadline
+	 * @return true if the running search has to stop
+	 */
+	private boolean outOfTime() {
+		if ((nodes & 1023) == 0 && (stopped || completedDepth > 0 && System.currentTimeMillis() >= deadline))
+			aborted = true;
+		return aborted;
+	}
+
+	/**
+	 * moves a move to the front of the move array, if the array has it
+	 * @param moves the move array
+	 * @param nMoves the number of moves
+	 * @param move the move to try first
+	 */
+	private void putFirst(int[] moves, int nMoves, int move) {
+		if (move == Move.NONE)
+			return;
+		for (int i = 0; i < nMoves; i++) {
+			if (moves[i] == move) {
+				System.arraycopy(moves, 0, moves, 1, i);
+				moves[0] = move;
+				return;
 			}
 		}
-		return new Node(bestMove, minMaxValue);
 	}
 	
 	
@@ -292,544 +744,60 @@ public class Minimax {
 	 * Function that get all the available moves depending on the color of the player
 	 * @param board current board that we are searching for the available moves
 	 * @param color of the player
-	 * @return all possible moves of the player with the color given as input
+	 * @param moves the array the moves are written to
+	 * @return the number of possible moves of the player with the color given as input
 	 */
-	public ArrayList<String> getMoves(String [][] board, int color){
+	public int getMoves(Position board, int color, int[] moves){
 		if (color == 0) 
-			return this.whiteMoves(tmpBoard);
-		return this.blackMoves(tmpBoard);
+			return this.whiteMoves(tmpBoard, moves);
+		return this.blackMoves(tmpBoard, moves);
 
 	}
 
 
 	/**
-	 * Function that returns a new board equal to the input
-	 * @param oldBoard the old board
-	 * @return the old board
-	 */
-	public String[][] equalBoards(String[][] oldBoard) {
-		String [][] newBoard = new String[rows][columns];
-		for (int i = 0; i < rows; i++)
-			for(int j = 0; j < columns; j++)
-				newBoard[i][j] = oldBoard[i][j];
-
-		return newBoard;
-
-	}
-
-	/**
-	 * Finds if the game is over
+	 * Finds if the game is over, from the piece counts the board keeps up to date
 	 * @return true if game is over and false if game is not over
 	 */
 	public boolean gameOver() {
-		int numOfWhiteKings = 0;
-		int numOfBlackKings = 0;
-		int numOfBlackPawns = 0;
-		int numOfWhitePawns = 0;
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				switch (tmpBoard[i][j]) {
-				case "WK":
-					numOfWhiteKings++;
-					break;
-				case "BK":
-					numOfBlackKings++;
-				case "BP":
-				case "BR":
-					numOfBlackPawns++;
-					break;
-				case "WP":
-				case "WR":
-					numOfWhitePawns++;
-					break;
-				default:
-					break;
-				}
-			}
-		}
-		if (numOfBlackKings == 0 || numOfWhiteKings == 0 || (numOfBlackPawns == 0 && numOfWhitePawns == 0)) 
-			return true;
-		return false;
+		return tmpBoard.isGameOver();
 	}
 
 	/**
-	 * Heuristic function that evaluates score for each situation in the board
+	 * Heuristic function that evaluates score for each situation in the board:
+	 * score plus value of the chess parts left, of the player minus the opponent's
 	 * @param board
 	 * @param color
 	 * @return the value of each node
 	 */
-	public int evaluateScore(String [][] board, int color) {
-
-		int numOfBlackPawns = 0;
-		int numOfWhitePawns = 0;
-		int numOfWhiteKnights = 0;
-		int numOfBlackKnights = 0;
-		int numOfWhiteKings = 0;
-		int numOfBlackKings = 0;
-
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				switch (tmpBoard[i][j]) {
-				case "WP":
-					numOfWhitePawns++;
-					break;
-				case "WR":
-					numOfWhiteKnights++;
-					break;
-				case "WK":
-					numOfWhiteKings++;
-					break;
-				case "BP":
-					numOfBlackPawns++;
-				case "BR":
-					numOfBlackKnights++;
-				case "BK":
-					numOfBlackKings++;
-				default:
-					break;
-				}
-			}
-		}
-		int valueOfPawnsWhite = numOfWhitePawns + numOfWhiteKnights*3 + numOfWhiteKings*8;
-		int valueOfPawnsBlack = numOfBlackPawns + numOfBlackKnights*3 + numOfBlackKings*8;
+	public int evaluateScore(Position board, int color) {
+		int valueWhite = board.getScore(Position.WHITE) + board.getMaterial(Position.WHITE);
+		int valueBlack = board.getScore(Position.BLACK) + board.getMaterial(Position.BLACK);
 		if (color == 0) 
-			return (scoreWhite + valueOfPawnsWhite) - ( scoreBlack+ valueOfPawnsBlack); 
-		return ( scoreBlack+ valueOfPawnsBlack) - (scoreWhite + valueOfPawnsWhite);
-
+			return valueWhite - valueBlack; 
+		return valueBlack - valueWhite;
 	}
 
-	
 	/**
 	 * Function for returning all the available moves for white player
 	 * @param board the current board
-	 * @return an Arraylist of all the available moves
+	 * @param availableMoves the array the moves are written to
+	 * @return the number of the available moves
 	 */
-	private ArrayList<String> whiteMoves(String [][] board)
+	private int whiteMoves(Position board, int[] availableMoves)
 	{
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-
-		for(int i=0; i < rows; i++)
-		{
-			for(int j=0; j < columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-
-				// if it there is not a white chess part in this position then keep on searching
-				if(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-
-					// check if it can move one vertical position ahead
-					if (i != 0) {
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-					}
-
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-1) + Integer.toString(j);
-
-						availableMoves.add(move);
-					}
-
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j-1].charAt(0));						
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j-1);
-
-							availableMoves.add(move);
-						}											
-					}
-
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j+1].charAt(0));
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j+1);							
-							availableMoves.add(move);
-						}
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j-(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j+(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j-1);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j+1);
-
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
-		return availableMoves;
+		return board.whiteMoves(availableMoves);
 	}
 
 	
 	/**
 	 * function that gives as all the available moves of a black player
 	 * @param board the current board
-	 * @return all the available moves in an arraylist
+	 * @param availableMoves the array the moves are written to
+	 * @return the number of the available moves
 	 */
-	private ArrayList<String> blackMoves(String [][] board)
+	private int blackMoves(Position board, int[] availableMoves)
 	{
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-
-		for(int i=0; i<rows; i++)
-		{
-			for(int j=0; j<columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-
-				// if it there is not a black chess part in this position then keep on searching
-				if(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-
-					// check if it can move one vertical position ahead
-					if (i !=6) {
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-					}
-
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+1) + Integer.toString(j);
-
-						availableMoves.add(move);
-					}
-
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j-1].charAt(0));
-
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j-1);
-
-							availableMoves.add(move);
-						}																	
-					}
-
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j+1].charAt(0));
-
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j+1);
-
-							availableMoves.add(move);
-						}
-
-
-
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j-(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j+(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j-1);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j+1);
-
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
-		return availableMoves;
+		return board.blackMoves(availableMoves);
 	}
 }
@@ -0,0 +1,48 @@
+import benchmark.Measurement;
+
+/**
+ * Measures the minimax search outside of a game: visited nodes, time and
+ * heap bytes allocated by the searching thread, without and with move ordering.
+ * It fails, with exit status 1, if the search allocates for its nodes: an object per node is
+ * 16 bytes or more per node, while the few objects of a whole search are less than a byte per node.
+ * Usage: java MinimaxBenchmark [depth]
+ */
+public class MinimaxBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+		boolean allocates = false;
+		World world = new World();
+		Minimax minimax = new Minimax(world);
+		minimax.ABPrunning = true;
+		minimax.setTimeBudget(1000);
+
+		// warm up, see Measurement
+		minimax.selectMiniMax();
+
+		// the same search with the moves in board order and with move ordering
+		for (int i = 0; i < 2; i++) {
+			minimax.useMoveOrdering = i == 1;
+			minimax.setTranspositionTableSize(Minimax.HASH_MB);
+			minimax.ordering = new MoveOrdering();
+			minimax.nodes = 0;
+			long measurement = Measurement.measurementBytes();
+			long bytes = Measurement.allocatedBytes();
+			long start = System.nanoTime();
+			minimax.searchFixedDepth(depth, world.getMyColor());
+			long time = System.nanoTime() - start;
+			bytes = Measurement.allocatedBytes() - bytes - measurement;
+
+			System.out.println(minimax.useMoveOrdering ? "move ordering:" : "board order:");
+			System.out.println("depth " + depth + " : " + minimax.nodes + " nodes in " + time / 1000000 + " ms");
+			System.out.println("first move cutoffs " + Math.round(minimax.ordering.firstMoveCutoffRate() * 100) + "% of " + minimax.ordering.cutoffs);
+			System.out.println("allocated " + bytes + " bytes, " + (double) bytes / minimax.nodes + " bytes per node");
+			if (bytes >= minimax.nodes)
+				allocates = true;
+		}
+		if (allocates) {
+			System.out.println("FAILED: the search allocates for its nodes");
+			System.exit(1);
+		}
+	}
+}
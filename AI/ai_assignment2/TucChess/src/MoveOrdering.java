@@ -0,0 +1,133 @@
+import bitboard.Move;
+import bitboard.MoveStack;
+import bitboard.Position;
+
+/**
+ * Orders the moves of the alpha beta search so that cutoffs come early:
+ * the hash move first, then captures by most valuable victim / least valuable attacker,
+ * then the two killer moves of the ply, then the quiet moves by history.
+ * The moves are not sorted up front, next() picks the best of the ones not yet tried,
+ * so a cutoff after the first moves saves the rest of the work.
+ */
+public class MoveOrdering {
+
+	private static final int HASH_MOVE = 1 << 30;
+	private static final int CAPTURE = 1 << 24;
+	private static final int KILLER = 1 << 22;
+	private static final int HISTORY_MAX = KILLER - 64;	// room for the variation of the quiet moves
+
+	private final int[][] scores;	// score of every move, for every ply
+	private final int[][] killers;	// two quiet moves that caused a cutoff, for every ply
+	private final int[][] history;	// cutoffs of quiet moves, by piece and destination square
+
+	long cutoffs = 0;			// nodes that had a cutoff
+	long firstMoveCutoffs = 0;	// nodes that had the cutoff at the first move
+	private int variation = 0;	// not 0 gives the quiet moves a different order, for the helpers of lazy SMP
+
+	public MoveOrdering() {
+		scores = new int[MoveStack.MAX_PLY][Move.MAX_MOVES];
+		killers = new int[MoveStack.MAX_PLY][2];
+		history = new int[8][Position.SQUARES];
+	}
+
+	/**
+	 * forgets the killers and ages the history, at the start of every search
+	 */
+	public void newSearch() {
+		for (int[] plyKillers : killers) {
+			plyKillers[0] = Move.NONE;
+			plyKillers[1] = Move.NONE;
+		}
+		for (int[] pieceHistory : history)
+			for (int i = 0; i < pieceHistory.length; i++)
+				pieceHistory[i] >>= 1;
+	}
+
+	/**
+	 * @param variation 0 for the usual order, any other number mixes up a little the order of the quiet moves
+	 */
+	public void setVariation(int variation) {
+		this.variation = variation;
+	}
+
+	/**
+	 * gives every move of a ply its ordering score
+	 * @param moves the moves of the ply
+	 * @param nMoves the number of moves
+	 * @param ply the ply
+	 * @param hashMove the move of the transposition table, Move.NONE if there is none
+	 */
+	public void score(int[] moves, int nMoves, int ply, int hashMove) {
+		int[] plyScores = scores[ply];
+		int[] plyKillers = killers[ply];
+		for (int i = 0; i < nMoves; i++) {
+			int move = moves[i];
+			int gain = Position.VALUE[Move.captured(move)] + (Move.isLastRow(move) ? 1 : 0);
+			if (move == hashMove)
+				plyScores[i] = HASH_MOVE;
+			else if (gain > 0)
+				plyScores[i] = CAPTURE + gain * 16 - Position.VALUE[Move.piece(move)];
+			else if (move == plyKillers[0])
+				plyScores[i] = KILLER + 1;
+			else if (move == plyKillers[1])
+				plyScores[i] = KILLER;
+			else
+				plyScores[i] = history[Move.piece(move)][Move.to(move)]
+						+ (variation == 0 ? 0 : ((move ^ variation) * 0x9E3779B1) >>> 26);
+		}
+	}
+
+	/**
+	 * moves the best of the moves not yet tried to position index
+	 * @param moves the moves of the ply
+	 * @param nMoves the number of moves
+	 * @param index the number of moves already tried
+	 * @param ply the ply
+	 * @return the move to try now
+	 */
+	public int next(int[] moves, int nMoves, int index, int ply) {
+		int[] plyScores = scores[ply];
+		int best = index;
+		for (int i = index + 1; i < nMoves; i++)
+			if (plyScores[i] > plyScores[best])
+				best = i;
+		if (best != index) {
+			int move = moves[best];
+			moves[best] = moves[index];
+			moves[index] = move;
+			int score = plyScores[best];
+			plyScores[best] = plyScores[index];
+			plyScores[index] = score;
+		}
+		return moves[index];
+	}
+
+	/**
+	 * remembers the move that caused a cutoff, quiet moves become killers and gain history
+	 * @param move the move
+	 * @param index the position of the move in the order it was tried
+	 * @param ply the ply
+	 * @param depth the remaining depth of the node
+	 */
+	public void cutoff(int move, int index, int ply, int depth) {
+		cutoffs++;
+		if (index == 0)
+			firstMoveCutoffs++;
+		if (Move.isCapture(move) || Move.isLastRow(move))
+			return;
+		int[] plyKillers = killers[ply];
+		if (plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+		int[] pieceHistory = history[Move.piece(move)];
+		pieceHistory[Move.to(move)] = Math.min(HISTORY_MAX, pieceHistory[Move.to(move)] + depth * depth);
+	}
+
+	/**
+	 * @return the part of the cutoffs that happened at the first move tried
+	 */
+	public double firstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+}
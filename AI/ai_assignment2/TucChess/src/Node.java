@@ -4,15 +4,15 @@
  *
  */
 public class Node {
-	String move;
+	int move;
 	int value;
 	
 	/**
 	 * costrucor for node
-	 * @param move 
+	 * @param move the packed move
 	 * @param cost
 	 */
-	public Node(String move, int cost) {
+	public Node(int move, int cost) {
 		this.move = move;
 		this.value = cost;
 	}
@@ -0,0 +1,41 @@
+/**
+ * Measures the parallel alpha beta searches, root split and lazy SMP: time to a fixed depth
+ * from the starting board with 1, 2, 4, 8 and 16 threads, and the speedup over one thread.
+ * Every run starts with an empty transposition table.
+ * Usage: java ParallelSearchBenchmark [depth]
+ */
+public class ParallelSearchBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+		World world = new World();
+		System.out.println(Runtime.getRuntime().availableProcessors() + " processors");
+
+		long serialTime = 0;
+		for (int mode = Minimax.ROOT_SPLIT; mode <= Minimax.LAZY_SMP; mode++)
+		for (int threads = mode == Minimax.ROOT_SPLIT ? 1 : 2; threads <= 16; threads *= 2) {
+			Minimax minimax = new Minimax(world);
+			minimax.ABPrunning = true;
+			minimax.setThreads(threads);
+			minimax.setParallelMode(mode);
+
+			// warm up, see Measurement
+			for (int i = 0; i < 5; i++) {
+				minimax.setTranspositionTableSize(Minimax.HASH_MB);
+				minimax.searchFixedDepth(depth - 1, world.getMyColor());
+			}
+
+			minimax.setTranspositionTableSize(Minimax.HASH_MB);
+			minimax.nodes = 0;
+			long start = System.nanoTime();
+			minimax.searchFixedDepth(depth, world.getMyColor());
+			long time = System.nanoTime() - start;
+			if (threads == 1)
+				serialTime = time;
+			minimax.setThreads(1);
+
+			System.out.println((threads == 1 ? "serial" : mode == Minimax.ROOT_SPLIT ? "root split" : "lazy SMP") + ", " + threads + " threads, depth " + depth + " : " + minimax.nodes + " nodes in " + time / 1000000 + " ms, speedup "
+					+ String.format("%.2f", (double) serialTime / time));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Transposition table for the alpha beta search, indexed by the Zobrist key of the board.
+ * The size is a power of two and every bucket has two entries: the first one keeps the
+ * deepest search of the bucket, the second one is replaced every time.
+ * An entry is packed in a long:
+ *
+ * bits  0-18  best move
+ * bits 19-40  score, stored with an offset so that it is never negative
+ * bits 41-48  depth of the search the score comes from
+ * bits 49-50  bound type, EXACT, LOWER or UPPER (0 marks an empty entry)
+ * bits 51-58  age, the search the entry was written in
+ *
+ * The table may be shared by searching threads without locks: the key is kept xor the entry,
+ * so an entry another thread is writing at the same time does not verify and is not used.
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 1;	// the score is the value of the position
+	public static final int LOWER = 2;	// the value is at least the score
+	public static final int UPPER = 3;	// the value is at most the score
+
+	private static final int ENTRY_BYTES = 16;	// a key and a packed entry
+	private static final int SCORE_OFFSET = 1 << 21;
+
+	private final long[] keys;
+	private final long[] entries;
+	private final int bucketMask;
+	private int age = 0;
+
+	/**
+	 * @param megabytes the memory of the table, rounded down to a power of two entries
+	 */
+	public TranspositionTable(int megabytes) {
+		long size = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+		int capacity = Integer.highestOneBit((int) Math.min(size, 1 << 30));
+		keys = new long[capacity];
+		entries = new long[capacity];
+		bucketMask = capacity / 2 - 1;
+	}
+
+	/**
+	 * marks the start of a new search, entries of older searches are replaced first
+	 */
+	public void newSearch() {
+		age = (age + 1) & 0xFF;
+	}
+
+	public void clear() {
+		java.util.Arrays.fill(keys, 0);
+		java.util.Arrays.fill(entries, 0);
+	}
+
+	/**
+	 * @param key the Zobrist key of the board
+	 * @return the packed entry of the board, 0 if the table has none
+	 */
+	public long probe(long key) {
+		int index = (int) key & bucketMask;
+		index <<= 1;
+		long entry = entries[index];
+		if (entry != 0 && (keys[index] ^ entry) == key)
+			return entry;
+		entry = entries[index + 1];
+		if (entry != 0 && (keys[index + 1] ^ entry) == key)
+			return entry;
+		return 0;
+	}
+
+	/**
+	 * keeps the result of a search
+	 * @param key the Zobrist key of the board
+	 * @param depth the depth of the search
+	 * @param bound EXACT, LOWER or UPPER
+	 * @param score the score
+	 * @param move the best move found, Move.NONE if there is none
+	 */
+	public void store(long key, int depth, int bound, int score, int move) {
+		long entry = (move & 0x7FFFFL)
+				| ((long) (score + SCORE_OFFSET) << 19)
+				| ((long) depth << 41)
+				| ((long) bound << 49)
+				| ((long) age << 51);
+		int index = ((int) key & bucketMask) << 1;
+		long deepest = entries[index];
+		if (deepest == 0 || (keys[index] ^ deepest) == key || age(deepest) != age || depth >= depth(deepest)) {
+			keys[index] = key ^ entry;
+			entries[index] = entry;
+		}
+		else {
+			keys[index + 1] = key ^ entry;
+			entries[index + 1] = entry;
+		}
+	}
+
+	public static int move(long entry) {
+		return (int) (entry & 0x7FFFF);
+	}
+
+	public static int score(long entry) {
+		return (int) ((entry >>> 19) & 0x3FFFFF) - SCORE_OFFSET;
+	}
+
+	public static int depth(long entry) {
+		return (int) ((entry >>> 41) & 0xFF);
+	}
+
+	public static int bound(long entry) {
+		return (int) ((entry >>> 49) & 3);
+	}
+
+	private static int age(long entry) {
+		return (int) ((entry >>> 51) & 0xFF);
+	}
+}
@@ -0,0 +1,36 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * What the benchmarks measure the heap with. Every benchmark runs its search once
+ * before it measures, to warm up: class loading and compilation are then not measured.
+ */
+public class Measurement {
+
+	/**
+	 * @return the bytes allocated so far by the current thread
+	 */
+	public static long allocatedBytes() {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return the bytes allocatedBytes allocates itself, to take off a measurement
+	 */
+	public static long measurementBytes() {
+		long bytes = allocatedBytes();
+		return allocatedBytes() - bytes;
+	}
+
+	/**
+	 * @return the bytes of the heap in use after a garbage collection
+	 */
+	public static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
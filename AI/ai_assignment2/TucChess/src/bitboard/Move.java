@@ -0,0 +1,73 @@
+package bitboard;
+
+/**
+ * Moves packed in a single int, so that the search never builds Strings.
+ *
+ * bits  0-5   from square
+ * bits  6-11  to square
+ * bits 12-14  moved piece code
+ * bits 15-17  captured piece code (PRIZE when a prize is taken, EMPTY otherwise)
+ * bit  18     the pawn reaches the last row and leaves the board
+ */
+public class Move {
+
+	public static final int NONE = 0;		// from and to are never equal in a real move
+	public static final int MAX_MOVES = 64;	// more than any position of the game can have
+
+	public static final int LAST_ROW = 1 << 18;
+
+	private Move() {
+	}
+
+	/**
+	 * packs a move in an int
+	 * @param from the square the piece leaves
+	 * @param to the square the piece arrives
+	 * @param piece the moved piece
+	 * @param captured the piece or prize standing on the target square
+	 * @param flags LAST_ROW or 0
+	 * @return the move
+	 */
+	public static int encode(int from, int to, int piece, int captured, int flags) {
+		return from | (to << 6) | (piece << 12) | (captured << 15) | flags;
+	}
+
+	public static int from(int move) {
+		return move & 63;
+	}
+
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	public static int piece(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	public static int captured(int move) {
+		return (move >>> 15) & 7;
+	}
+
+	public static boolean isLastRow(int move) {
+		return (move & LAST_ROW) != 0;
+	}
+
+	/**
+	 * @param move the move
+	 * @return true if the move takes an opponent's chess part or a prize
+	 */
+	public static boolean isCapture(int move) {
+		return captured(move) != Position.EMPTY;
+	}
+
+	/**
+	 * @param move the move
+	 * @return the move in the 4 character form the server uses
+	 */
+	public static String toText(int move) {
+		int from = from(move);
+		int to = to(move);
+		return Integer.toString(Position.row(from)) + Integer.toString(Position.column(from)) +
+				Integer.toString(Position.row(to)) + Integer.toString(Position.column(to));
+	}
+}
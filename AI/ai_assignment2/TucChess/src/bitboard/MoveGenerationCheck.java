@@ -0,0 +1,241 @@
+package bitboard;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Checks the move generation of Position against the generator of the String[][] board it
+ * replaced, on the positions of random games, with prizes dropped on the board, and on random
+ * boards: generateMoves has to give the same moves in the same order, generateCaptures the
+ * captures and the moves to the last row of them in the same order, countMoves their number,
+ * and randomMove every one of them and nothing else. Exits with status 1 on the first positions that differ.
+ * Usage: java bitboard.MoveGenerationCheck [games] [boards]
+ */
+public class MoveGenerationCheck {
+
+	static final int MAX_PLIES = 60;
+	static final int MAX_FAILURES = 10;	// positions printed before the check gives up
+	static final String[] NAMES = { " ", "WP", "WR", "WK", "P", "BP", "BR", "BK" };
+	static final int ROOK_BLOCKS = 3;
+
+	static int positions = 0;
+	static int failures = 0;
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int boards = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		Random random = new Random(1);	// fixed seed, the same positions on every run
+		int[] moves = new int[Move.MAX_MOVES];
+
+		for (int game = 0; game < games && failures < MAX_FAILURES; game++) {
+			Position board = startPosition();
+			int color = Position.WHITE;
+			for (int ply = 0; ply < MAX_PLIES && !board.isGameOver(); ply++) {
+				check(board, color, random);
+				int nMoves = board.generateMoves(color, moves);
+				if (nMoves == 0)
+					break;
+				board.makeMove(moves[random.nextInt(nMoves)]);
+				int square = random.nextInt(Position.SQUARES);
+				if (random.nextInt(8) == 0 && board.pieceAt(square) == Position.EMPTY)
+					board.put(square, Position.PRIZE);
+				color = 1 - color;
+			}
+		}
+		for (int i = 0; i < boards && failures < MAX_FAILURES; i++) {
+			Position board = randomBoard(random);
+			check(board, Position.WHITE, random);
+			check(board, Position.BLACK, random);
+		}
+
+		System.out.println(positions + " positions, " + failures + " differ");
+		if (failures > 0)
+			System.exit(1);
+	}
+
+	/**
+	 * compares the moves of a player on a board, prints the board if they differ
+	 * @param board the board
+	 * @param color the player
+	 * @param random random numbers for randomMove
+	 */
+	static void check(Position board, int color, Random random) {
+		positions++;
+		int[] moves = new int[Move.MAX_MOVES];
+		int nMoves = board.generateMoves(color, moves);
+		ArrayList<String> generated = new ArrayList<String>();
+		ArrayList<String> captures = new ArrayList<String>();
+		HashSet<Integer> moveSet = new HashSet<Integer>();
+		for (int i = 0; i < nMoves; i++) {
+			generated.add(Move.toText(moves[i]));
+			if (Move.isCapture(moves[i]) || Move.isLastRow(moves[i]))
+				captures.add(Move.toText(moves[i]));
+			moveSet.add(moves[i]);
+		}
+
+		String error = null;
+		ArrayList<String> expected = stringMoves(toStrings(board), color);
+		if (!generated.equals(expected))
+			error = "generateMoves " + generated + ", the string board " + expected;
+
+		int nCaptures = board.generateCaptures(color, moves);
+		ArrayList<String> generatedCaptures = new ArrayList<String>();
+		for (int i = 0; i < nCaptures; i++)
+			generatedCaptures.add(Move.toText(moves[i]));
+		if (error == null && !generatedCaptures.equals(captures))
+			error = "generateCaptures " + generatedCaptures + ", expected " + captures;
+
+		if (error == null && board.countMoves(color) != nMoves)
+			error = "countMoves " + board.countMoves(color) + ", expected " + nMoves;
+
+		HashSet<Integer> picked = new HashSet<Integer>();
+		for (int i = 0; i < 64 * nMoves && picked.size() < nMoves && error == null; i++) {
+			int move = board.randomMove(color, random.nextInt());
+			if (!moveSet.contains(move))
+				error = "randomMove " + Move.toText(move) + " is not a move";
+			picked.add(move);
+		}
+		if (error == null && picked.size() < nMoves)
+			error = "randomMove gave " + picked.size() + " of the " + nMoves + " moves";
+		if (nMoves == 0 && error == null && board.randomMove(color, random.nextInt()) != Move.NONE)
+			error = "randomMove gave a move without moves";
+
+		if (error != null) {
+			failures++;
+			System.out.println((color == Position.WHITE ? "white" : "black") + " to move:\n" + show(board) + error);
+		}
+	}
+
+	/**
+	 * @return the board of a new game, as World sets it
+	 */
+	static Position startPosition() {
+		Position board = new Position();
+		int rows = Position.ROWS;
+		int columns = Position.COLUMNS;
+		for (int j = 0; j < columns; j++) {
+			board.put(1, j, Position.BLACK_PAWN);
+			board.put(rows - 2, j, Position.WHITE_PAWN);
+			board.put(rows / 2, j, Position.PRIZE);
+		}
+		board.put(0, 0, Position.BLACK_PAWN);
+		board.put(0, columns - 1, Position.BLACK_PAWN);
+		board.put(0, 1, Position.BLACK_ROOK);
+		board.put(0, columns - 2, Position.BLACK_ROOK);
+		board.put(0, columns / 2, Position.BLACK_KING);
+		board.put(rows - 1, 0, Position.WHITE_PAWN);
+		board.put(rows - 1, columns - 1, Position.WHITE_PAWN);
+		board.put(rows - 1, 1, Position.WHITE_ROOK);
+		board.put(rows - 1, columns - 2, Position.WHITE_ROOK);
+		board.put(rows - 1, columns / 2, Position.WHITE_KING);
+		return board;
+	}
+
+	/**
+	 * @param random random numbers
+	 * @return a board with up to a king, two rooks and seven pawns of every color and up to five prizes
+	 * on random squares, no pawn on the last row of its player, which it would have left the board from
+	 */
+	static Position randomBoard(Random random) {
+		Position board = new Position();
+		int[] pieces = { Position.WHITE_KING, Position.BLACK_KING, Position.WHITE_ROOK, Position.BLACK_ROOK,
+				Position.WHITE_PAWN, Position.BLACK_PAWN, Position.PRIZE };
+		int[] most = { 1, 1, 2, 2, 7, 7, 5 };
+		for (int i = 0; i < pieces.length; i++) {
+			for (int n = random.nextInt(most[i] + 1); n > 0; n--) {
+				int square = random.nextInt(Position.SQUARES);
+				int row = Position.row(square);
+				if (board.pieceAt(square) != Position.EMPTY
+						|| pieces[i] == Position.WHITE_PAWN && row == 0 || pieces[i] == Position.BLACK_PAWN && row == Position.ROWS - 1)
+					continue;
+				board.put(square, pieces[i]);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * @param board a board
+	 * @return the board, a line for every row
+	 */
+	static String show(Position board) {
+		StringBuilder text = new StringBuilder();
+		for (String[] row : toStrings(board)) {
+			for (String square : row)
+				text.append(String.format("%-3s", square.equals(" ") ? "." : square));
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @param board a board
+	 * @return the board as the String[][] of the game before the bitboards
+	 */
+	static String[][] toStrings(Position board) {
+		String[][] strings = new String[Position.ROWS][Position.COLUMNS];
+		for (int i = 0; i < Position.ROWS; i++)
+			for (int j = 0; j < Position.COLUMNS; j++)
+				strings[i][j] = NAMES[board.pieceAt(i, j)];
+		return strings;
+	}
+
+	/**
+	 * The move generator of the String[][] board, whiteMoves and blackMoves of World before the bitboards,
+	 * with the two colors in one: the squares are scanned row by row, a pawn moves ahead onto an empty
+	 * square or a prize and captures crosswise, a rook moves up to ROOK_BLOCKS squares up, down, left and
+	 * right, stopping on the first chess part or prize, and the king moves one square
+	 * @param board the board
+	 * @param color the player
+	 * @return the moves, as the strings of the row and the column of the from and to squares
+	 */
+	static ArrayList<String> stringMoves(String[][] board, int color) {
+		ArrayList<String> availableMoves = new ArrayList<String>();
+		String own = color == Position.WHITE ? "W" : "B";
+		String other = color == Position.WHITE ? "B" : "W";
+		int ahead = color == Position.WHITE ? -1 : 1;
+		int lastRow = color == Position.WHITE ? 0 : Position.ROWS - 1;
+		int[][] directions = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };	// up, down, left, right
+
+		for (int i = 0; i < Position.ROWS; i++) {
+			for (int j = 0; j < Position.COLUMNS; j++) {
+				if (!board[i][j].startsWith(own))
+					continue;
+				char kind = board[i][j].charAt(1);
+				if (kind == 'P') {
+					String firstLetter = board[i + ahead][j].substring(0, 1);
+					if (firstLetter.equals(" ") || firstLetter.equals("P"))
+						availableMoves.add(text(i, j, i + ahead, j));
+					if (j != 0 && i != lastRow && board[i + ahead][j - 1].startsWith(other))
+						availableMoves.add(text(i, j, i + ahead, j - 1));
+					if (j != Position.COLUMNS - 1 && i != lastRow && board[i + ahead][j + 1].startsWith(other))
+						availableMoves.add(text(i, j, i + ahead, j + 1));
+				}
+				else {
+					int blocks = kind == 'R' ? ROOK_BLOCKS : 1;
+					for (int[] direction : directions) {
+						for (int k = 1; k <= blocks; k++) {
+							int row = i + k * direction[0];
+							int column = j + k * direction[1];
+							if (row < 0 || row == Position.ROWS || column < 0 || column == Position.COLUMNS)
+								break;
+							String firstLetter = board[row][column].substring(0, 1);
+							if (firstLetter.equals(own))
+								break;
+							availableMoves.add(text(i, j, row, column));
+							// prevent detouring a chesspart to attack the other
+							if (firstLetter.equals(other) || firstLetter.equals("P"))
+								break;
+						}
+					}
+				}
+			}
+		}
+		return availableMoves;
+	}
+
+	static String text(int fromRow, int fromColumn, int toRow, int toColumn) {
+		return Integer.toString(fromRow) + Integer.toString(fromColumn) + Integer.toString(toRow) + Integer.toString(toColumn);
+	}
+}
@@ -0,0 +1,53 @@
+package bitboard;
+
+/**
+ * Move arrays allocated once, one for every ply of a search, so that
+ * move generation writes in place and never allocates while searching.
+ */
+public class MoveStack {
+
+	public static final int MAX_PLY = 64;
+
+	private final int[][] moves;
+
+	public MoveStack() {
+		this(MAX_PLY);
+	}
+
+	/**
+	 * @param plies the deepest ply the stack has to serve
+	 */
+	public MoveStack(int plies) {
+		moves = new int[plies][Move.MAX_MOVES];
+	}
+
+	/**
+	 * @param ply the ply
+	 * @return the move array of the ply
+	 */
+	public int[] get(int ply) {
+		return moves[ply];
+	}
+
+	/**
+	 * fills the move array of a ply with the moves of a player
+	 * @param board the board
+	 * @param color the color of the player
+	 * @param ply the ply
+	 * @return the number of moves
+	 */
+	public int generate(Position board, int color, int ply) {
+		return board.generateMoves(color, moves[ply]);
+	}
+
+	/**
+	 * fills the move array of a ply with the captures, prizes and last row moves of a player
+	 * @param board the board
+	 * @param color the color of the player
+	 * @param ply the ply
+	 * @return the number of moves
+	 */
+	public int generateCaptures(Position board, int color, int ply) {
+		return board.generateCaptures(color, moves[ply]);
+	}
+}
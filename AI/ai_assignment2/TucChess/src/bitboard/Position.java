@@ -0,0 +1,657 @@
+package bitboard;
+
+/**
+ * Bitboard representation of the 7x5 TUC-CHESS board.
+ * Square (row, column) is bit row*5 + column, so the whole board fits in the
+ * lower 35 bits of a long and every piece set is kept in its own bitboard.
+ */
+public class Position {
+
+	public static final int ROWS = 7;
+	public static final int COLUMNS = 5;
+	public static final int SQUARES = ROWS * COLUMNS;
+
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	// piece codes, the lower two bits are the kind and bit 2 is the color
+	public static final int EMPTY = 0;
+	public static final int WHITE_PAWN = 1;
+	public static final int WHITE_ROOK = 2;
+	public static final int WHITE_KING = 3;
+	public static final int PRIZE = 4;
+	public static final int BLACK_PAWN = 5;
+	public static final int BLACK_ROOK = 6;
+	public static final int BLACK_KING = 7;
+
+	public static final int PAWN = 1;
+	public static final int ROOK = 2;
+	public static final int KING = 3;
+
+	public static final long BOARD = (1L << SQUARES) - 1;
+	public static final long COLUMN_0 = 0x42108421L;	// squares 0,5,10,...,30
+	public static final long COLUMN_4 = COLUMN_0 << 4;
+
+	private static final int ROOK_BLOCKS = 3;	// rook can move towards <ROOK_BLOCKS> blocks in any vertical or horizontal direction
+
+	// when set, every make and unmake checks the incremental key against a recomputed one
+	public static boolean debugHash = Boolean.getBoolean("tucchess.debugHash");
+
+	// points a player gains for taking a piece code: pawn 1, rook 3, king 8, prize 1
+	public static final int[] VALUE = { 0, 1, 3, 8, 1, 1, 3, 8 };
+
+	long[] pieces;		// one bitboard per piece code
+	long[] occupied;	// one bitboard per color
+	int[] score;		// score of every color
+	int[] count;		// number of chess parts (or prizes) of every piece code
+	int[] material;		// value of the chess parts of every color, pawn 1, rook 3, king 8
+	int color;			// the color of the player to move
+	long key;			// Zobrist key, kept up to date on every change of the board
+	// rooks and king of the player randomMove works for, with the squares they can move to; not part of the position
+	private final int[] scratchFrom = new int[8];
+	private final long[] scratchTargets = new long[8];
+
+	/**
+	 * constructor for an empty board
+	 */
+	public Position() {
+		pieces = new long[8];
+		occupied = new long[2];
+		score = new int[2];
+		count = new int[8];
+		material = new int[2];
+	}
+
+	/**
+	 * @return a new position equal to this one
+	 */
+	public Position copy() {
+		Position position = new Position();
+		position.copyFrom(this);
+		return position;
+	}
+
+	/**
+	 * overwrites this position with another one
+	 * @param other the position to copy
+	 */
+	public void copyFrom(Position other) {
+		System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+		System.arraycopy(other.occupied, 0, occupied, 0, occupied.length);
+		score[WHITE] = other.score[WHITE];
+		score[BLACK] = other.score[BLACK];
+		System.arraycopy(other.count, 0, count, 0, count.length);
+		material[WHITE] = other.material[WHITE];
+		material[BLACK] = other.material[BLACK];
+		color = other.color;
+		key = other.key;
+	}
+
+	public static int square(int row, int column) {
+		return row * COLUMNS + column;
+	}
+
+	public static int row(int square) {
+		return square / COLUMNS;
+	}
+
+	public static int column(int square) {
+		return square % COLUMNS;
+	}
+
+	public static int kind(int piece) {
+		return piece & 3;
+	}
+
+	public static int color(int piece) {
+		return piece >>> 2;
+	}
+
+	public static int piece(int color, int kind) {
+		return (color << 2) | kind;
+	}
+
+	/**
+	 * @param square the square
+	 * @return the piece code standing on the square, EMPTY if there is none
+	 */
+	public int pieceAt(int square) {
+		long bit = 1L << square;
+		if ((pieces[PRIZE] & bit) != 0)
+			return PRIZE;
+		int color;
+		if ((occupied[WHITE] & bit) != 0)
+			color = WHITE;
+		else if ((occupied[BLACK] & bit) != 0)
+			color = BLACK;
+		else
+			return EMPTY;
+		for (int kind = PAWN; kind <= KING; kind++)
+			if ((pieces[piece(color, kind)] & bit) != 0)
+				return piece(color, kind);
+		return EMPTY;
+	}
+
+	public int pieceAt(int row, int column) {
+		return pieceAt(square(row, column));
+	}
+
+	/**
+	 * puts a piece or a prize on an empty square
+	 * @param square the square
+	 * @param piece the piece code
+	 */
+	public void put(int square, int piece) {
+		toggle(square, piece);
+		added(piece);
+	}
+
+	public void put(int row, int column, int piece) {
+		put(square(row, column), piece);
+	}
+
+	/**
+	 * clears a square
+	 * @param square the square
+	 */
+	public void remove(int square) {
+		int piece = pieceAt(square);
+		if (piece == EMPTY)
+			return;
+		toggle(square, piece);
+		removed(piece);
+	}
+
+	public long getPieces(int piece) {
+		return pieces[piece];
+	}
+
+	public long getOccupied(int color) {
+		return occupied[color];
+	}
+
+	public int getColor() {
+		return color;
+	}
+
+	/**
+	 * sets the player to move
+	 * @param color the color of the player
+	 */
+	public void setColor(int color) {
+		if (this.color != color)
+			key ^= Zobrist.BLACK_TO_MOVE;
+		this.color = color;
+	}
+
+	public long getKey() {
+		return key;
+	}
+
+	public int getScore(int color) {
+		return score[color];
+	}
+
+	public void setScores(int scoreWhite, int scoreBlack) {
+		score[WHITE] = scoreWhite;
+		score[BLACK] = scoreBlack;
+	}
+
+	/**
+	 * @param piece the piece code
+	 * @return how many chess parts (or prizes) of that code are on the board
+	 */
+	public int count(int piece) {
+		return count[piece];
+	}
+
+	/**
+	 * @param color the color
+	 * @return the value of the chess parts of the color on the board
+	 */
+	public int getMaterial(int color) {
+		return material[color];
+	}
+
+	public boolean hasKing(int color) {
+		return count[piece(color, KING)] != 0;
+	}
+
+	/**
+	 * The game is over when a king has been captured or when only the kings are left
+	 * @return true if game is over and false if game is not over
+	 */
+	public boolean isGameOver() {
+		if (count[WHITE_KING] == 0 || count[BLACK_KING] == 0)
+			return true;
+		return count[WHITE_PAWN] + count[WHITE_ROOK] + count[BLACK_PAWN] + count[BLACK_ROOK] == 0;
+	}
+
+	private void added(int piece) {
+		count[piece]++;
+		if (piece != PRIZE)
+			material[color(piece)] += VALUE[piece];
+	}
+
+	private void removed(int piece) {
+		count[piece]--;
+		if (piece != PRIZE)
+			material[color(piece)] -= VALUE[piece];
+	}
+
+	/**
+	 * adds a piece on a square or takes it away from it
+	 * @param square the square
+	 * @param piece the piece code
+	 */
+	private void toggle(int square, int piece) {
+		long bit = 1L << square;
+		pieces[piece] ^= bit;
+		if (piece != PRIZE)
+			occupied[color(piece)] ^= bit;
+		key ^= Zobrist.PIECE_SQUARE[piece][square];
+	}
+
+	/**
+	 * passes the turn to the other player
+	 */
+	private void switchColor() {
+		color ^= 1;
+		key ^= Zobrist.BLACK_TO_MOVE;
+	}
+
+	/**
+	 * throws if the incremental key differs from the key computed from scratch
+	 */
+	public void verifyKey() {
+		long expected = Zobrist.compute(this);
+		if (key != expected)
+			throw new IllegalStateException("Zobrist key " + Long.toHexString(key) + " should be " + Long.toHexString(expected));
+	}
+
+	/**
+	 * Executes a move. The captured chess part or prize is read from the board, a pawn
+	 * that reaches the last row leaves the board together with whatever it captured there,
+	 * and the mover gains the value of what it took plus one for reaching the last row.
+	 * The turn passes to the other player
+	 * @param move the packed move
+	 * @return the undo record that unmakeMove needs to take the move back
+	 */
+	public int makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int piece = Move.piece(move);
+		int mover = color(piece);
+		int captured = pieceAt(to);
+		boolean lastRow = kind(piece) == PAWN && row(to) == (mover == WHITE ? 0 : ROWS - 1);
+		int scoreDelta = VALUE[captured] + (lastRow ? 1 : 0);
+
+		if (captured != EMPTY) {
+			toggle(to, captured);
+			removed(captured);
+		}
+		toggle(from, piece);
+		if (!lastRow)
+			toggle(to, piece);
+		else
+			removed(piece);
+		score[mover] += scoreDelta;
+		switchColor();
+		if (debugHash)
+			verifyKey();
+
+		return Undo.encode(captured, scoreDelta, lastRow);
+	}
+
+	/**
+	 * Takes back a move made by makeMove
+	 * @param move the packed move
+	 * @param undo the undo record makeMove returned
+	 */
+	public void unmakeMove(int move, int undo) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int piece = Move.piece(move);
+		int captured = Undo.captured(undo);
+
+		score[color(piece)] -= Undo.scoreDelta(undo);
+		if (!Undo.isLastRow(undo))
+			toggle(to, piece);
+		else
+			added(piece);
+		toggle(from, piece);
+		if (captured != EMPTY) {
+			toggle(to, captured);
+			added(captured);
+		}
+		switchColor();
+		if (debugHash)
+			verifyKey();
+	}
+
+	/**
+	 * Function for returning all the available moves for white player
+	 * @param moves the array the moves are written to
+	 * @return the number of moves
+	 */
+	public int whiteMoves(int[] moves) {
+		return generateMoves(WHITE, moves);
+	}
+
+	/**
+	 * function that gives as all the available moves of a black player
+	 * @param moves the array the moves are written to
+	 * @return the number of moves
+	 */
+	public int blackMoves(int[] moves) {
+		return generateMoves(BLACK, moves);
+	}
+
+	/**
+	 * Generates the moves of a player square by square, in the same order the
+	 * board scan of the string board did
+	 * @param color the color of the player
+	 * @param moves the array the moves are written to
+	 * @return the number of moves
+	 */
+	public int generateMoves(int color, int[] moves) {
+		long own = occupied[color];
+		long opponent = occupied[color ^ 1];
+		long prizes = pieces[PRIZE];
+		long free = BOARD & ~(own | opponent);	// empty squares and prizes
+		long pawns = pieces[piece(color, PAWN)];
+		long rooks = pieces[piece(color, ROOK)];
+		long lastRow = color == WHITE ? 0x1FL : 0x1FL << (SQUARES - COLUMNS);
+		int n = 0;
+
+		for (long parts = own; parts != 0; parts &= parts - 1) {
+			int from = Long.numberOfTrailingZeros(parts);
+			long bit = 1L << from;
+
+			if ((pawns & bit) != 0) {	// it is a pawn
+				int pawn = piece(color, PAWN);
+				long ahead, left, right;
+				if (color == WHITE) {
+					ahead = bit >>> 5;
+					left = (bit >>> 6) & ~COLUMN_4;
+					right = (bit >>> 4) & ~COLUMN_0;
+				}
+				else {
+					ahead = (bit << 5) & BOARD;
+					left = (bit << 4) & ~COLUMN_4 & BOARD;
+					right = (bit << 6) & ~COLUMN_0 & BOARD;
+				}
+				// move one vertical position ahead, or crosswise only to capture
+				if ((ahead & free) != 0)
+					moves[n++] = pawnMove(from, ahead, pawn, lastRow);
+				if ((left & opponent) != 0)
+					moves[n++] = pawnMove(from, left, pawn, lastRow);
+				if ((right & opponent) != 0)
+					moves[n++] = pawnMove(from, right, pawn, lastRow);
+			}
+			else if ((rooks & bit) != 0) {	// it is a rook
+				int rook = piece(color, ROOK);
+				for (int direction = 0; direction < 4; direction++) {
+					long target = bit;
+					for (int k = 0; k < ROOK_BLOCKS; k++) {
+						target = step(target, direction);
+						if (target == 0 || (target & own) != 0)
+							break;
+						int to = Long.numberOfTrailingZeros(target);
+						moves[n++] = Move.encode(from, to, rook, pieceAt(to), 0);
+						// prevent detouring a chesspart to attack the other
+						if ((target & (opponent | prizes)) != 0)
+							break;
+					}
+				}
+			}
+			else {	// it is the king
+				int king = piece(color, KING);
+				for (int direction = 0; direction < 4; direction++) {
+					long target = step(bit, direction);
+					if (target != 0 && (target & own) == 0) {
+						int to = Long.numberOfTrailingZeros(target);
+						moves[n++] = Move.encode(from, to, king, pieceAt(to), 0);
+					}
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Generates only the moves that gain score: captures of the opponent's chess parts,
+	 * prizes, and pawns stepping on the last row. The order is the one of generateMoves
+	 * @param color the color of the player
+	 * @param moves the array the moves are written to
+	 * @return the number of moves
+	 */
+	public int generateCaptures(int color, int[] moves) {
+		long own = occupied[color];
+		long opponent = occupied[color ^ 1];
+		long prizes = pieces[PRIZE];
+		long targets = opponent | prizes;
+		long free = BOARD & ~(own | opponent);
+		long pawns = pieces[piece(color, PAWN)];
+		long rooks = pieces[piece(color, ROOK)];
+		long lastRow = color == WHITE ? 0x1FL : 0x1FL << (SQUARES - COLUMNS);
+		int n = 0;
+
+		for (long parts = own; parts != 0; parts &= parts - 1) {
+			int from = Long.numberOfTrailingZeros(parts);
+			long bit = 1L << from;
+
+			if ((pawns & bit) != 0) {
+				int pawn = piece(color, PAWN);
+				long ahead, left, right;
+				if (color == WHITE) {
+					ahead = bit >>> 5;
+					left = (bit >>> 6) & ~COLUMN_4;
+					right = (bit >>> 4) & ~COLUMN_0;
+				}
+				else {
+					ahead = (bit << 5) & BOARD;
+					left = (bit << 4) & ~COLUMN_4 & BOARD;
+					right = (bit << 6) & ~COLUMN_0 & BOARD;
+				}
+				if ((ahead & free & (prizes | lastRow)) != 0)
+					moves[n++] = pawnMove(from, ahead, pawn, lastRow);
+				if ((left & opponent) != 0)
+					moves[n++] = pawnMove(from, left, pawn, lastRow);
+				if ((right & opponent) != 0)
+					moves[n++] = pawnMove(from, right, pawn, lastRow);
+			}
+			else if ((rooks & bit) != 0) {
+				int rook = piece(color, ROOK);
+				for (int direction = 0; direction < 4; direction++) {
+					long target = bit;
+					for (int k = 0; k < ROOK_BLOCKS; k++) {
+						target = step(target, direction);
+						if (target == 0 || (target & own) != 0)
+							break;
+						if ((target & targets) != 0) {
+							int to = Long.numberOfTrailingZeros(target);
+							moves[n++] = Move.encode(from, to, rook, pieceAt(to), 0);
+							break;
+						}
+					}
+				}
+			}
+			else {
+				int king = piece(color, KING);
+				for (int direction = 0; direction < 4; direction++) {
+					long target = step(bit, direction);
+					if ((target & targets) != 0) {
+						int to = Long.numberOfTrailingZeros(target);
+						moves[n++] = Move.encode(from, to, king, pieceAt(to), 0);
+					}
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Counts the moves of a player without generating them
+	 * @param color the color of the player
+	 * @return the number of moves generateMoves would give
+	 */
+	public int countMoves(int color) {
+		return pickMove(color, 0, true);
+	}
+
+	/**
+	 * Picks a move uniformly at random among the moves of a player, without writing them anywhere.
+	 * The moves are counted by kind: pawns ahead, pawns capturing on the left and on the right,
+	 * then the rooks and the king, whose target squares are kept in the scratch arrays of the board
+	 * so that the move is picked without a second pass
+	 * @param color the color of the player
+	 * @param random a random int, all of its 32 bits are used
+	 * @return the move, Move.NONE if the player has none
+	 */
+	public int randomMove(int color, int random) {
+		return pickMove(color, random, false);
+	}
+
+	private int pickMove(int color, int random, boolean countOnly) {
+		long own = occupied[color];
+		long opponent = occupied[color ^ 1];
+		long free = BOARD & ~(own | opponent);
+		int pawn = piece(color, PAWN);
+		long pawns = pieces[pawn];
+		long ahead, left, right;
+		int aheadShift, leftShift, rightShift;	// to - from of every kind of pawn move
+		if (color == WHITE) {
+			ahead = (pawns >>> 5) & free;
+			left = (pawns >>> 6) & ~COLUMN_4 & opponent;
+			right = (pawns >>> 4) & ~COLUMN_0 & opponent;
+			aheadShift = -5;
+			leftShift = -6;
+			rightShift = -4;
+		}
+		else {
+			ahead = (pawns << 5) & BOARD & free;
+			left = (pawns << 4) & ~COLUMN_4 & BOARD & opponent;
+			right = (pawns << 6) & ~COLUMN_0 & BOARD & opponent;
+			aheadShift = 5;
+			leftShift = 4;
+			rightShift = 6;
+		}
+		int nAhead = Long.bitCount(ahead);
+		int nLeft = Long.bitCount(left);
+		int nRight = Long.bitCount(right);
+		int n = nAhead + nLeft + nRight;
+
+		long stops = opponent | pieces[PRIZE];
+		int nParts = 0;
+		for (int kind = ROOK; kind <= KING; kind++) {
+			for (long parts = pieces[piece(color, kind)]; parts != 0; parts &= parts - 1) {
+				int from = Long.numberOfTrailingZeros(parts);
+				long targets = kind == ROOK ? rookTargets(from, own, stops) : kingTargets(from, own);
+				scratchFrom[nParts] = from;
+				scratchTargets[nParts++] = targets;
+				n += Long.bitCount(targets);
+			}
+		}
+		if (countOnly)
+			return n;
+		if (n == 0)
+			return Move.NONE;
+
+		int index = (int) (((random & 0xFFFFFFFFL) * n) >>> 32);
+		long lastRow = color == WHITE ? 0x1FL : 0x1FL << (SQUARES - COLUMNS);
+		if (index < nAhead) {
+			int to = nthSquare(ahead, index);
+			return pawnMove(to - aheadShift, 1L << to, pawn, lastRow);
+		}
+		index -= nAhead;
+		if (index < nLeft) {
+			int to = nthSquare(left, index);
+			return pawnMove(to - leftShift, 1L << to, pawn, lastRow);
+		}
+		index -= nLeft;
+		if (index < nRight) {
+			int to = nthSquare(right, index);
+			return pawnMove(to - rightShift, 1L << to, pawn, lastRow);
+		}
+		index -= nRight;
+		for (int i = 0; i < nParts; i++) {
+			int count = Long.bitCount(scratchTargets[i]);
+			if (index < count) {
+				int from = scratchFrom[i];
+				int to = nthSquare(scratchTargets[i], index);
+				return Move.encode(from, to, pieceAt(from), pieceAt(to), 0);
+			}
+			index -= count;
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * @param from the square of the rook
+	 * @param own the chess parts of the player
+	 * @param stops the squares a rook stops on, the opponent's chess parts and the prizes
+	 * @return the squares the rook can move to
+	 */
+	private static long rookTargets(int from, long own, long stops) {
+		long targets = 0;
+		for (int direction = 0; direction < 4; direction++) {
+			long target = 1L << from;
+			for (int k = 0; k < ROOK_BLOCKS; k++) {
+				target = step(target, direction);
+				if (target == 0 || (target & own) != 0)
+					break;
+				targets |= target;
+				if ((target & stops) != 0)
+					break;
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * @param from the square of the king
+	 * @param own the chess parts of the player
+	 * @return the squares the king can move to
+	 */
+	private static long kingTargets(int from, long own) {
+		long bit = 1L << from;
+		long targets = (bit >>> 5) | ((bit << 5) & BOARD) | ((bit >>> 1) & ~COLUMN_4) | ((bit << 1) & ~COLUMN_0 & BOARD);
+		return targets & ~own;
+	}
+
+	/**
+	 * @param bits a bitboard
+	 * @param n a number smaller than the squares of the bitboard
+	 * @return the square of the n-th set bit, from the lowest
+	 */
+	private static int nthSquare(long bits, int n) {
+		for (int i = 0; i < n; i++)
+			bits &= bits - 1;
+		return Long.numberOfTrailingZeros(bits);
+	}
+
+	private int pawnMove(int from, long target, int pawn, long lastRow) {
+		int to = Long.numberOfTrailingZeros(target);
+		return Move.encode(from, to, pawn, pieceAt(to), (target & lastRow) != 0 ? Move.LAST_ROW : 0);
+	}
+
+	/**
+	 * shifts a bitboard one square towards a direction, dropping whatever leaves the board
+	 * @param bits the bitboard
+	 * @param direction 0 upwards, 1 downwards, 2 left, 3 right
+	 * @return the shifted bitboard
+	 */
+	static long step(long bits, int direction) {
+		switch (direction) {
+		case 0:
+			return bits >>> 5;
+		case 1:
+			return (bits << 5) & BOARD;
+		case 2:
+			return (bits >>> 1) & ~COLUMN_4;
+		default:
+			return (bits << 1) & ~COLUMN_0 & BOARD;
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package bitboard;
+
+/**
+ * What Position.makeMove needs to remember to take a move back, packed in an int.
+ *
+ * bits 0-2   captured piece code (PRIZE when a prize was consumed, EMPTY otherwise)
+ * bits 3-7   score the moving player gained
+ * bit  8     the pawn reached the last row and was removed from the board
+ */
+public class Undo {
+
+	public static final int LAST_ROW = 1 << 8;
+
+	private Undo() {
+	}
+
+	public static int encode(int captured, int scoreDelta, boolean lastRow) {
+		return captured | (scoreDelta << 3) | (lastRow ? LAST_ROW : 0);
+	}
+
+	public static int captured(int undo) {
+		return undo & 7;
+	}
+
+	public static boolean prizeConsumed(int undo) {
+		return captured(undo) == Position.PRIZE;
+	}
+
+	public static int scoreDelta(int undo) {
+		return (undo >>> 3) & 31;
+	}
+
+	public static boolean isLastRow(int undo) {
+		return (undo & LAST_ROW) != 0;
+	}
+}
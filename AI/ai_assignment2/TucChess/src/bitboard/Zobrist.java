@@ -0,0 +1,38 @@
+package bitboard;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing: one for every piece code (prizes included) on
+ * every square and one for the side to move. The key of a position is the xor of
+ * the keys of what stands on the board, so a move changes it with a few xors.
+ */
+public class Zobrist {
+
+	static final long[][] PIECE_SQUARE = new long[8][Position.SQUARES];
+	static final long BLACK_TO_MOVE;
+
+	static {
+		Random random = new Random(0x7C5C4E55L);	// fixed seed, keys are the same in every run
+		for (int piece = Position.WHITE_PAWN; piece <= Position.BLACK_KING; piece++)
+			for (int square = 0; square < Position.SQUARES; square++)
+				PIECE_SQUARE[piece][square] = random.nextLong();
+		BLACK_TO_MOVE = random.nextLong();
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * computes the key of a position from scratch
+	 * @param position the position
+	 * @return the key
+	 */
+	public static long compute(Position position) {
+		long key = position.getColor() == Position.BLACK ? BLACK_TO_MOVE : 0;
+		for (int piece = Position.WHITE_PAWN; piece <= Position.BLACK_KING; piece++)
+			for (long bits = position.getPieces(piece); bits != 0; bits &= bits - 1)
+				key ^= PIECE_SQUARE[piece][Long.numberOfTrailingZeros(bits)];
+		return key;
+	}
+}
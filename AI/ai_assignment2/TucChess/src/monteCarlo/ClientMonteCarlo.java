@@ -9,6 +9,8 @@ import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.Random;
 
+import bitboard.Move;
+
 public class ClientMonteCarlo
 {
 	private static final int PORTServer = 9876;
@@ -124,7 +126,7 @@ public class ClientMonteCarlo
 						// beginning of the game
 						if(myColor == 0)
 						{
-							String action = world.selectAction();
+							int action = world.selectAction();
 							
 							try
 							{
@@ -138,7 +140,7 @@ public class ClientMonteCarlo
 								System.out.println(e.getClass().getName() + " : " + e.getMessage());
 							}
 							
-							sendData = action.getBytes("UTF-8");
+							sendData = Move.toText(action).getBytes("UTF-8");
 							sendPacket.setData(sendData);
 							sendPacket.setLength(sendData.length);
 							clientSocket.send(sendPacket);
@@ -205,7 +207,7 @@ public class ClientMonteCarlo
 					
 					if(nextPlayer==myColor)
 					{
-						String action = world.selectAction();
+						int action = world.selectAction();
 						
 						try
 						{
@@ -219,7 +221,7 @@ public class ClientMonteCarlo
 							System.out.println(e.getClass().getName() + " : " + e.getMessage());
 						}
 						
-						sendData = action.getBytes("UTF-8");
+						sendData = Move.toText(action).getBytes("UTF-8");
 						sendPacket.setData(sendData);
 						sendPacket.setLength(sendData.length);
 						clientSocket.send(sendPacket);			
@@ -254,9 +256,13 @@ public class ClientMonteCarlo
 		ClientMonteCarlo client = new ClientMonteCarlo();
 
 		// optionally adding delay to response
-		if(args.length == 1)
+		if(args.length >= 1)
 			client.delay = Integer.parseInt(args[0]);
 		
+		// optionally setting the milliseconds the search may use for a move
+		if(args.length >= 2)
+			client.world.setTimeBudget(Long.parseLong(args[1]));
+		
 		// send the first message - my name
 		client.sendName();
 
@@ -1,8 +1,13 @@
 package monteCarlo;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bitboard.Move;
+import bitboard.Position;
 
 /**
  * Monte carlo search tree
@@ -15,20 +20,73 @@ public class MCTS {
 	int totalVisits;	// total visits of the nodes
 	World game;		// the world
 	public static int MAX = 1000000;	// big int used for initialization
-	String [][] tmpBoard;
+	Position tmpBoard;
 	int rows;
 	int columns;
-	int scoreBlack;
-	int scoreWhite;
 	int it = 0;
+	int[] expandMoves;	// move array of expand, allocated once
+	private long seed;	// state of the xorshift random numbers of this thread
+	Tree tree;		// kept between the moves, null when the next search has to build a new one
+	int leafColor;	// the color of the player to move at the node selection or expand returned
+	int rootLead;	// the lead of our player at the root, the rollout margin and evaluateHeuristic count from it
+	// threads that search the tree together, -Dtucchess.mctsThreads=<threads> changes it
+	public static int THREADS = Integer.getInteger("tucchess.mctsThreads", 1);
+	// nodes a tree searched by many threads can have, it cannot grow while they search it
+	public static int SHARED_NODES = Integer.getInteger("tucchess.mctsNodes", 1 << 21);
+	public static final int VIRTUAL_LOSS = -3;	// value of a rollout a thread has not finished yet, a lost one
+	public static final int TREE_PARALLEL = 0;	// the threads share one tree
+	public static final int ROOT_PARALLEL = 1;	// every thread grows a tree of its own, the roots are merged at the end
+	// how more than one thread search, -Dtucchess.mctsParallel=tree|root changes it
+	public static int PARALLEL = "root".equals(System.getProperty("tucchess.mctsParallel")) ? ROOT_PARALLEL : TREE_PARALLEL;
+	// rollout moves before the rollout is scored by evaluateHeuristic, 0 plays on to the end; -Dtucchess.rolloutPlies changes it
+	public static int ROLLOUT_PLIES = Integer.getInteger("tucchess.rolloutPlies", 40);
+	// lead in score plus chess parts gained or lost since the root that decides a rollout at once, 0 never does; -Dtucchess.rolloutMargin changes it
+	public static int ROLLOUT_MARGIN = Integer.getInteger("tucchess.rolloutMargin", 10);
+	public static final double HEURISTIC_SCALE = 6;	// the lead gained since the root that evaluateHeuristic maps to tanh(1), a rook taken
+	// progressive widening, a node visited n times has at most 1 + n^WIDENING children, 0 lets every move have one;
+	// -Dtucchess.widening changes it
+	public static double WIDENING = Double.parseDouble(System.getProperty("tucchess.widening", "0"));
+	// RAVE equivalence, the visits of a node at which its own value and its AMAF value count the same, 0 turns RAVE off;
+	// -Dtucchess.rave changes it
+	public static int RAVE = Integer.getInteger("tucchess.rave", 0);
+	// positions of the table that lets transpositions share their statistics, 0 turns transpositions off;
+	// -Dtucchess.mctsPositions changes it
+	public static int TRANSPOSITIONS = Integer.getInteger("tucchess.mctsPositions", 0);
+	// limits of a search, 0 for none: -Dtucchess.mctsTime (ms), -Dtucchess.mctsIterations, -Dtucchess.mctsMaxNodes, -Dtucchess.mctsMemory (MB)
+	public static long TIME_BUDGET = Long.getLong("tucchess.mctsTime", 2000);
+	public static int MAX_ITERATIONS = Integer.getInteger("tucchess.mctsIterations", 0);
+	public static int MAX_NODES = Integer.getInteger("tucchess.mctsMaxNodes", 0);
+	public static long MAX_MEMORY = Long.getLong("tucchess.mctsMemory", 0) * 1024 * 1024;
+	public static final int CLOCK_CHECK = 64;	// iterations between two reads of the clock, a power of two
+	public static final double EXPLORATION = 1.41;	// weight of the exploration term of the UCT value
+	private int threads = THREADS;
+	private int parallelMode = PARALLEL;
+	private int rolloutPlies = ROLLOUT_PLIES;
+	private int rolloutMargin = ROLLOUT_MARGIN;
+	private double widening = WIDENING;
+	private int rave = RAVE;
+	private int transpositions = TRANSPOSITIONS;
+	private long timeBudget = TIME_BUDGET;
+	private int maxIterations = MAX_ITERATIONS;
+	private int maxNodes = MAX_NODES;
+	private long maxMemory = MAX_MEMORY;
+	private int[] played = new int[256];	// the moves of the iteration, from the root through the rollout
+	private int playedCount;
+	private int treeMoves;					// the moves of the iteration made in the tree, the depth of the rollout start
+	private final int[][] seen = new int[2][1 << 12];	// the stamp of the iteration, for the from-to of every move played, by color
+	private int stamp = 0;
+	private int virtualLoss = 0;	// 1 when threads share the tree: the visits counted as lost while a thread is in a node
+	private ForkJoinPool pool;		// created with the first parallel search
+	private final ArrayList<MCTS> workers = new ArrayList<MCTS>();
 
 	public MCTS(World game) {
+		tmpBoard = new Position();
+		expandMoves = new int[Move.MAX_MOVES];
+		seed = System.nanoTime() ^ System.identityHashCode(this) | 1;
 		totalVisits = 0;
 		this.game = game;
 		rows = game.getRows();
 		columns = game.getColumns();
-		scoreWhite = 0;
-		scoreBlack = 0;
 	}
 
 	/**
@@ -46,11 +104,12 @@ public class MCTS {
 	 * function that gets all the available moves for the black or the white player
 	 * @param board the board
 	 * @param color
-	 * @return
-	 */	public ArrayList<String> getAvailableMoves(String[][] board, int color){
+	 * @param moves the array the moves are written to
+	 * @return the number of moves
+	 */	public int getAvailableMoves(Position board, int color, int[] moves){
 		if (color == 0) 
-			return this.whiteMoves(board);
-		return this.blackMoves(board);
+			return this.whiteMoves(board, moves);
+		return this.blackMoves(board, moves);
 	}
 
 	 /**
@@ -59,168 +118,774 @@ public class MCTS {
 	  * @param color
 	  * @return the move that is gonna be executed
 	  */
-	public String findNextMoveMonteCarlo(String [][] board, int color) {
+	public int findNextMoveMonteCarlo(Position board, int color) {
 		totalVisits =0;
-		tmpBoard = equalBoards(game.getBoard());
-		String bestMove = "";
-		int eval = -MAX; 
-		Tree tree = new Tree(new Node(null, new State(board, 0,null)));
-		expand(tree.root,color);
+		Position rootBoard = equalBoards(board);
+		rootBoard.setScores(game.scoreWhite, game.scoreBlack);
+		rootBoard.setColor(color);
+		tmpBoard = equalBoards(rootBoard);
+		if (tree != null && samePosition(tree.rootBoard, rootBoard)) {
+			totalVisits = tree.visits(tree.root);
+			System.out.println("Reused tree with " + totalVisits + " visits");
+		}
+		else
+			tree = newTree(rootBoard);
 		monteCarlo(board, color, tree);
-		for (Node child : tree.root.children) {
-			if(child.state.cost > eval) {
-				bestMove = child.state.move;
-				eval = child.state.cost;
+		int bestMove = bestMove(tree);
+		// a search stopped by a limit before the root got a child, the server gets a legal move all the same
+		if (bestMove == Move.NONE && getAvailableMoves(rootBoard, color, expandMoves) > 0)
+			bestMove = expandMoves[0];
+
+		System.out.println("Best move:"+Move.toText(bestMove));
+		return bestMove;
+	}
+
+	/**
+	 * @param rootBoard the board of the root
+	 * @return a new tree, with a table of positions when transpositions are on
+	 */
+	Tree newTree(Position rootBoard) {
+		Tree tree = new Tree(rootBoard);
+		if (transpositions > 0)
+			tree.useTranspositions(transpositions);
+		return tree;
+	}
+
+	/**
+	 * @param tree a searched tree
+	 * @return the move of a root child proven won, else of the most visited root child that is not
+	 * proven lost, the higher value first among equal visits; Move.NONE if the root has no children.
+	 * The total value is not compared: when the values are negative it favours the children visited least
+	 */
+	int bestMove(Tree tree) {
+		int bestMove = Move.NONE;
+		int mostVisits = -1;
+		double eval = -MAX;
+		boolean lost = true;	// every child seen so far is proven lost
+		for (int child = tree.firstChild(tree.root); child != Tree.NONE; child = tree.nextSibling(child)) {
+			if (tree.proven(child) == Tree.WIN)
+				return tree.move(child);
+			if (tree.proven(child) == Tree.LOSS && !lost)
+				continue;
+			if (lost && tree.proven(child) != Tree.LOSS) {
+				lost = false;
+				mostVisits = -1;
+			}
+			int visits = tree.visits(child);
+			if (visits > mostVisits || visits == mostVisits && tree.value(child) > eval) {
+				bestMove = tree.move(child);
+				mostVisits = visits;
+				eval = tree.value(child);
 			}
 		}
-
-		System.out.println("Best move:"+bestMove);
 		return bestMove;
 	}
 
 	/**
-	 * main function for monte carlo. It executes all the steps needed
+	 * Called for every move made in the game, ours and the opponent's: the child of the
+	 * root reached by the move becomes the new root, with its visits and costs, and the rest
+	 * of the tree is released. Without a child for the move, or when a prize has appeared
+	 * on the board, the next search builds a new tree
+	 * @param move the move made, only its from and to squares are compared
+	 * @param prizeAdded true if a prize has been added to the board after the move
+	 */
+	public void advance(int move, boolean prizeAdded) {
+		if (tree == null)
+			return;
+		int next = Tree.NONE;
+		if (!prizeAdded) {
+			for (int child = tree.firstChild(tree.root); child != Tree.NONE; child = tree.nextSibling(child)) {
+				if (Move.from(tree.move(child)) == Move.from(move) && Move.to(tree.move(child)) == Move.to(move)) {
+					next = child;
+					break;
+				}
+			}
+		}
+		if (next == Tree.NONE) {
+			tree = null;
+			return;
+		}
+		tree.promote(next);
+	}
+
+	/**
+	 * @param treeBoard the board of the root of the kept tree
+	 * @param board the board of the game
+	 * @return true if the boards have the same chess parts, prizes and player to move. The scores
+	 * are not compared, the tree keeps them up to date while the scores of the game come a move late
+	 */
+	private boolean samePosition(Position treeBoard, Position board) {
+		return treeBoard.getKey() == board.getKey();
+	}
+
+	/**
+	 * main function for monte carlo. It executes all the steps needed.
+	 * Every iteration starts from the board of the root: selection makes the moves down to the leaf on
+	 * tmpBoard, expand makes the move of the new leaf and rollout plays on from there.
+	 * The search runs until one of the limits is reached, see searching, or the result of the root is proven.
+	 * A tree the threads share is given its nodes before the clock starts, so that the allocation is not
+	 * paid out of the time budget
 	 * @param board
 	 * @param color
 	 * @param tree
 	 */
-	public void monteCarlo(String[][] board, int color,Tree tree) {
-		double start = System.currentTimeMillis();
-		while(System.currentTimeMillis()-start < 2000) {
-			scoreBlack = game.scoreBlack;
-			scoreWhite = game.scoreWhite;
-			Node leaf = selection(tree.root, color);
-			Node newleaf = expand(leaf, leaf.state.color);
-			double evaluation = rollout(newleaf);
-			backPropagation(newleaf, evaluation);
-			//System.out.println(evaluation);
-			totalVisits++;
+	public void monteCarlo(Position board, int color,Tree tree) {
+		if (threads > 1 && parallelMode == TREE_PARALLEL)
+			tree.reserve(maxNodes > 0 ? Math.min(SHARED_NODES, maxNodes) : SHARED_NODES);
+		long deadline = System.nanoTime() + timeBudget * 1000000;
+		if (threads > 1 && parallelMode == ROOT_PARALLEL) {
+			rootParallelMonteCarlo(color, tree, deadline);
+			return;
+		}
+		if (threads > 1) {
+			parallelMonteCarlo(color, tree, deadline);
+			return;
+		}
+		runIterations(tree, color, null, deadline);
+	}
+
+	/**
+	 * the iterations of a thread, until one of the limits is reached
+	 * @param tree the tree
+	 * @param color the color of the player to move at the root
+	 * @param iterations the iterations of every thread of the search so far, shared by the threads only
+	 * when there is an iteration limit, null when there is none or the search has one thread
+	 * @param deadline the System.nanoTime the time budget ends at
+	 */
+	private void runIterations(Tree tree, int color, AtomicInteger iterations, long deadline) {
+		for (int iteration = 0; searching(tree, iteration, iterations, deadline); iteration++) {
+			if (iterations != null)
+				iterations.incrementAndGet();
+			iterate(tree, color);
+		}
+	}
+
+	/**
+	 * @return the counter of the iterations the threads of a search share, null without an iteration limit
+	 */
+	private AtomicInteger sharedIterations() {
+		return maxIterations > 0 ? new AtomicInteger() : null;
+	}
+
+	/**
+	 * The limits of the search. The clock is read every CLOCK_CHECK iterations of a thread only, and not
+	 * before its first iteration, so that every thread searches at least CLOCK_CHECK iterations whatever
+	 * the time budget; the other limits are checked before every iteration. With no time budget, an iteration limit and
+	 * one thread, the search does the same iterations on every run, and the same ones for the same seed
+	 * @param tree the tree
+	 * @param iteration the iterations of the thread so far
+	 * @param iterations the iterations of every thread of the search so far, null to count the ones of the thread
+	 * @param deadline the System.nanoTime the time budget ends at
+	 * @return true if the search goes on
+	 */
+	private boolean searching(Tree tree, int iteration, AtomicInteger iterations, long deadline) {
+		if (tree.proven(tree.root) != 0)
+			return false;
+		if (maxIterations > 0 && (iterations == null ? iteration : iterations.get()) >= maxIterations)
+			return false;
+		if (maxNodes > 0 && tree.size() >= maxNodes)
+			return false;
+		if (maxMemory > 0 && tree.usedBytes() >= maxMemory)
+			return false;
+		return timeBudget == 0 || iteration == 0 || (iteration & (CLOCK_CHECK - 1)) != 0 || System.nanoTime() < deadline;
+	}
+
+	/**
+	 * @param timeBudget the milliseconds the search may use for every move, 0 for no time limit
+	 */
+	public void setTimeBudget(long timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * @param iterations the iterations of a search, of every thread together, 0 for no limit
+	 */
+	public void setIterationLimit(int iterations) {
+		maxIterations = iterations;
+	}
+
+	/**
+	 * @param nodes the nodes the tree may grow to, 0 for no limit
+	 */
+	public void setNodeLimit(int nodes) {
+		maxNodes = nodes;
+	}
+
+	/**
+	 * @param bytes the bytes the nodes, moves and positions of the tree may take, 0 for no limit.
+	 * The arrays grow by doubling, so up to twice as much may be allocated
+	 */
+	public void setMemoryLimit(long bytes) {
+		maxMemory = bytes;
+	}
+
+	/**
+	 * @param threads the threads that search the tree together, 1 searches on the calling thread
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+		if (pool != null)
+			pool.shutdown();
+		pool = null;
+		workers.clear();
+	}
+
+	/**
+	 * @param plies the moves of a rollout before it is scored by evaluateHeuristic, 0 plays on to the end of the game
+	 * @param margin the lead in score plus chess parts that ends a rollout as won or lost, 0 never does
+	 */
+	public void setRolloutLimit(int plies, int margin) {
+		rolloutPlies = plies;
+		rolloutMargin = margin;
+	}
+
+	/**
+	 * @param rave the RAVE equivalence, the visits of a node at which its own value and its AMAF value count the same, 0 turns RAVE off
+	 */
+	public void setRave(int rave) {
+		this.rave = rave;
+	}
+
+	/**
+	 * @param positions the positions of the table of every new tree, that lets the nodes of the same board share
+	 * their statistics, 0 turns transpositions off
+	 */
+	public void setTranspositions(int positions) {
+		transpositions = positions;
+	}
+
+	/**
+	 * @param widening a node visited n times gets at most 1 + n^widening children, 0 lets every move have one
+	 */
+	public void setWidening(double widening) {
+		this.widening = widening;
+	}
+
+	/**
+	 * @param i the number of the worker
+	 * @return the worker, with the settings of this search
+	 */
+	private MCTS worker(int i) {
+		if (workers.size() <= i)
+			workers.add(new MCTS(game));
+		MCTS worker = workers.get(i);
+		worker.rolloutPlies = rolloutPlies;
+		worker.rolloutMargin = rolloutMargin;
+		worker.widening = widening;
+		worker.rave = rave;
+		worker.transpositions = transpositions;
+		worker.timeBudget = timeBudget;
+		worker.maxIterations = maxIterations;
+		worker.maxNodes = maxNodes;
+		worker.maxMemory = maxMemory;
+		worker.totalVisits = 0;
+		return worker;
+	}
+
+	/**
+	 * @param parallelMode TREE_PARALLEL or ROOT_PARALLEL, how the threads share the search when there are more than one
+	 */
+	public void setParallelMode(int parallelMode) {
+		this.parallelMode = parallelMode;
+	}
 
+	/**
+	 * Root parallel monte carlo: every thread of the pool grows a tree of its own from a copy of the
+	 * root board, with its own board, move arrays and random numbers, so the threads share nothing
+	 * while they search. The first one continues the given tree. At the end the visits and the value
+	 * of the roots and their children of the other trees are added to the ones of the given tree, which
+	 * the move is chosen from. A move only another tree has a child for gets a child in the given tree
+	 * @param color the color of the player to move at the root
+	 * @param tree the tree
+	 * @param deadline the System.nanoTime the time budget ends at
+	 */
+	private void rootParallelMonteCarlo(final int color, Tree tree, final long deadline) {
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+		final AtomicInteger iterations = sharedIterations();
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < threads; i++) {
+			final MCTS worker = worker(i);
+			worker.tree = i == 0 ? tree : newTree(tree.rootBoard.copy());
+			worker.virtualLoss = 0;
+			tasks.add(pool.submit(new Runnable() {
+				public void run() {
+					worker.runIterations(worker.tree, color, iterations, deadline);
+				}
+			}));
 		}
+		for (int i = 0; i < threads; i++) {
+			tasks.get(i).join();
+			MCTS worker = workers.get(i);
+			totalVisits += worker.totalVisits;
+			if (i > 0)
+				mergeRoot(tree, worker.tree, color);
+			worker.tree = null;
+		}
+	}
 
+	/**
+	 * adds the visits and the value of the root of a tree and of its children to the root of another
+	 * one and its children for the same moves, with their proven results. Both roots have the same board,
+	 * so the same moves: a child the other tree has and the tree has not is made, as a leaf
+	 * @param tree the tree the statistics are added to
+	 * @param other the other tree
+	 * @param color the color of the player to move at the roots
+	 */
+	private void mergeRoot(Tree tree, Tree other, int color) {
+		tree.update(tree.root, other.visits(other.root), other.value(other.root));
+		for (int otherChild = other.firstChild(other.root); otherChild != Tree.NONE; otherChild = other.nextSibling(otherChild)) {
+			int child = findChild(tree, tree.root, other.move(otherChild));
+			if (child == Tree.NONE)
+				child = addRootChild(tree, other.move(otherChild), color);
+			if (child == Tree.NONE)
+				continue;
+			tree.update(child, other.visits(otherChild), other.value(otherChild));
+			if (other.proven(otherChild) != 0)
+				tree.setProven(child, other.proven(otherChild));
+		}
 	}
 
 	/**
-	 * function that selects the next leaf node
-	 * @param root of the tree xearching
-	 * @param color of player
-	 * @return leaf node
+	 * makes the child of a move of the root, generating the moves of the root if it has none yet
+	 * @param tree the tree
+	 * @param move a move of the root without a child
+	 * @param color the color of the player to move at the root
+	 * @return the child, NONE if the tree is full
 	 */
-	public Node selection(Node root, int color) {
-		Node selectedNode = root;
-		int i = 0;
-		while (!selectedNode.isLeaf()) {
-			double best = Double.NEGATIVE_INFINITY; 
+	private int addRootChild(Tree tree, int move, int color) {
+		tmpBoard.copyFrom(tree.rootBoard);
+		if (!tree.hasMoves(tree.root)) {
+			int nMoves = getAvailableMoves(tmpBoard, color, expandMoves);
+			orderMoves(expandMoves, nMoves);
+			if (!tree.setMoves(tree.root, expandMoves, nMoves))
+				return Tree.NONE;
+		}
+		int child = tree.addChild(tree.root, move);
+		if (child != Tree.NONE) {
+			tmpBoard.makeMove(move);
+			tree.setPosition(child, Tree.positionKey(tmpBoard));
+		}
+		return child;
+	}
 
-			for(Node node : selectedNode.children) {
+	/**
+	 * @param tree the tree
+	 * @param node a node of the tree
+	 * @param move a move
+	 * @return the child of the node for the move, NONE if the node has none
+	 */
+	private int findChild(Tree tree, int node, int move) {
+		for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child))
+			if (tree.move(child) == move)
+				return child;
+		return Tree.NONE;
+	}
 
-				if (best < uctValue(node.state.visitCount, node.state.cost, totalVisits)) {
-					best = uctValue(node.state.visitCount, node.state.cost, totalVisits);
-					selectedNode  = node;
+	/**
+	 * Tree parallel monte carlo: the threads of the pool run iterations on the same tree, every one
+	 * with its own board and move arrays. The statistics of the nodes are updated atomically and
+	 * a thread counts a virtual loss in every node of its path until its rollout is back, so that
+	 * the other threads prefer other paths. A node gets a child from the one thread that locks it
+	 * @param color the color of the player to move at the root
+	 * @param tree the tree
+	 * @param deadline the System.nanoTime the time budget ends at
+	 */
+	private void parallelMonteCarlo(final int color, final Tree tree, final long deadline) {
+		tree.shared = true;
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+		final AtomicInteger iterations = sharedIterations();
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < threads; i++) {
+			final MCTS worker = worker(i);
+			worker.tree = tree;
+			worker.virtualLoss = 1;
+			tasks.add(pool.submit(new Runnable() {
+				public void run() {
+					worker.runIterations(tree, color, iterations, deadline);
 				}
-			}
+			}));
+		}
+		for (int i = 0; i < threads; i++) {
+			tasks.get(i).join();
+			totalVisits += workers.get(i).totalVisits;
+			workers.get(i).tree = null;
 		}
+		tree.shared = false;
+	}
+
+	/**
+	 * one iteration of monte carlo: selection, expansion, rollout and back propagation
+	 * @param tree the tree
+	 * @param color the color of the player to move at the root
+	 */
+	void iterate(Tree tree, int color) {
+		tmpBoard.copyFrom(tree.rootBoard);
+		rootLead = evaluateScore(tree.rootBoard, game.getMyColor());
+		playedCount = 0;
+		int leaf = selection(tree, color);
+		int newleaf = expand(leaf, leafColor);
+		treeMoves = playedCount;
+		double evaluation = rollout(leafColor);
+		backPropagation(newleaf, evaluation);
+		totalVisits++;
+	}
+
+	/**
+	 * function that selects the next node to expand, making the moves of the path on tmpBoard.
+	 * It stops at the first node that may get another child: one whose moves are not generated yet,
+	 * or one with untried moves and, with progressive widening, fewer children than its visits allow,
+	 * or at a proven node. At every other node selectChild picks the child to go on with
+	 * @param tree the tree we are searching
+	 * @param color of player at the root
+	 * @return the node, the color of the player to move there is kept in leafColor
+	 */
+	public int selection(Tree tree, int color) {
+		int selectedNode = tree.root;
+		addVirtualLoss(selectedNode);
+		while (tree.proven(selectedNode) == 0 && !canExpand(tree, selectedNode)) {
+			int next = selectChild(tree, selectedNode);
+			if (next == Tree.NONE)
+				break;		// no children, or every one is proven lost
+			selectedNode = next;
+			addVirtualLoss(selectedNode);
+			play(tree.move(selectedNode));
+			color = changeColor(color);
+		}
+		leafColor = color;
 		return selectedNode;
 	}
 
-	
 	/**
-	 * function that expands a leaf node
+	 * The UCT value of every child, mean + EXPLORATION * sqrt(ln N / n), with N the visits of the node
+	 * and n the ones of the child, is computed once, in one pass over the children that keeps the best.
+	 * ln N is computed once for the node and 1 / n is read from the reciprocal visits the tree keeps,
+	 * so a child costs one square root and no division or logarithm. With RAVE the mean is blended with
+	 * the AMAF mean, weighted by beta = sqrt(k / (3n + k)), which falls from 1 to 0 as n grows past
+	 * the equivalence k. With transpositions the mean is the one of the board of the child, by any path
+	 * @param tree the tree
+	 * @param node a node with children
+	 * @return the first child not visited yet, else the child with the highest UCT value that is not
+	 * proven lost, NONE if every child is proven lost
+	 */
+	int selectChild(Tree tree, int node) {
+		double logParent = Math.log(Math.max(1, tree.visits(node)));
+		boolean transpositions = tree.hasTranspositions();
+		double best = Double.NEGATIVE_INFINITY;
+		int next = Tree.NONE;
+		for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child)) {
+			if (tree.proven(child) == Tree.LOSS)
+				continue;	// a proven lost move is never played
+			double inverse = tree.reciprocalVisits(child);
+			if (inverse == 0)
+				return child;
+			double mean = transpositions ? tree.mean(child) : tree.value(child) * inverse;
+			int amafVisits;
+			if (rave > 0 && (amafVisits = tree.amafVisits(child)) > 0) {
+				double beta = Math.sqrt(rave * inverse / (3 + rave * inverse));
+				mean += beta * (tree.amafValue(child) / amafVisits - mean);
+			}
+			double uct = mean + EXPLORATION * Math.sqrt(logParent * inverse);
+			if (best < uct) {
+				best = uct;
+				next = child;
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * @param tree the tree
+	 * @param node a node
+	 * @return true if the node may get another child now
+	 */
+	private boolean canExpand(Tree tree, int node) {
+		if (!tree.hasMoves(node))
+			return true;
+		if (tree.untriedCount(node) == 0)
+			return false;
+		return widening == 0 || tree.childCount(node) < 1 + (int) Math.pow(tree.visits(node), widening);
+	}
+
+	/**
+	 * function that expands a node by one child, tmpBoard has to be the board of the node.
+	 * The first time, the moves of the node are generated and kept in the tree in the order
+	 * orderMoves gives them; every expansion makes the child of the next one and its move on tmpBoard.
+	 * A child whose move ends the game is proven at once, by the scores, and the proof is propagated
 	 * @param nodeToExpand the node that is going to be expanded
 	 * @param color 
-	 * @return the expanded node in which we continue
-	 */
-	public Node expand(Node nodeToExpand, int color) {
-		ArrayList<String> moves = getAvailableMoves(tmpBoard, color);
-		String [][] oldBoard = equalBoards(tmpBoard);
-		if (!gameOver() && !moves.isEmpty()) {
-			for(String move : moves) {
-				int oldScoreBlack = scoreBlack;
-				int oldScoreWhite = scoreWhite;
-				makeMove(move, color);
-				nodeToExpand.children.add(new Node(nodeToExpand, new State(tmpBoard, changeColor(color), move)));
-				undoMove(oldBoard,oldScoreWhite, oldScoreBlack);
+	 * @return the expanded node in which we continue, the color of the player to move there is kept in leafColor
+	 */
+	public int expand(int nodeToExpand, int color) {
+		leafColor = color;
+		if (tree.proven(nodeToExpand) != 0)
+			return nodeToExpand;
+		// another thread expands the node, the rollout starts from it
+		if (!tree.lock(nodeToExpand))
+			return nodeToExpand;
+		if (!tree.hasMoves(nodeToExpand)) {
+			int[] moves = expandMoves;
+			int nMoves = gameOver() ? 0 : getAvailableMoves(tmpBoard, color, moves);
+			orderMoves(moves, nMoves);
+			if (!tree.setMoves(nodeToExpand, moves, nMoves)) {
+				tree.unlock(nodeToExpand);
+				return nodeToExpand;
 			}
 		}
-		else {
-			tmpBoard = equalBoards(oldBoard);
+		int child = tree.addChild(nodeToExpand);
+		tree.unlock(nodeToExpand);
+		if (child == Tree.NONE)
 			return nodeToExpand;
+		play(tree.move(child));
+		tree.setPosition(child, Tree.positionKey(tmpBoard));
+		addVirtualLoss(child);
+		leafColor = changeColor(color);
+		if (gameOver()) {
+			int lead = tmpBoard.getScore(color) - tmpBoard.getScore(leafColor);
+			if (lead != 0) {
+				tree.setProven(child, lead > 0 ? Tree.WIN : Tree.LOSS);
+				prove(child);
+			}
 		}
-		return nodeToExpand.children.get(randomNumberGenerator(0, nodeToExpand.children.size()-1));
+		return child;
+	}
+
+	/**
+	 * MCTS-Solver: propagates the proof of a node up with the minimax rules. A node with a child
+	 * proven won is proven lost, for the player who made its move, and a node whose every move has
+	 * a child and every child is proven lost is proven won
+	 * @param node the node just proven
+	 */
+	private void prove(int node) {
+		int parent;
+		while ((parent = tree.parent(node)) != Tree.NONE && tree.proven(parent) == 0) {
+			if (tree.proven(node) == Tree.WIN)
+				tree.setProven(parent, Tree.LOSS);
+			else if (allChildrenLost(parent))
+				tree.setProven(parent, Tree.WIN);
+			else
+				return;
+			node = parent;
+		}
+	}
+
+	/**
+	 * @param node a node
+	 * @return true if every move of the node has a child and every child is proven lost
+	 */
+	private boolean allChildrenLost(int node) {
+		if (!tree.hasMoves(node) || tree.untriedCount(node) > 0)
+			return false;
+		for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child))
+			if (tree.proven(child) != Tree.LOSS)
+				return false;
+		return true;
+	}
+
+	/**
+	 * puts the moves in the order their children are made: the captures and the moves to the last
+	 * row first, the most valuable gain first, then the other moves in a random order
+	 * @param moves the moves
+	 * @param nMoves the number of moves
+	 */
+	private void orderMoves(int[] moves, int nMoves) {
+		int captures = 0;
+		for (int i = 0; i < nMoves; i++) {
+			int move = moves[i];
+			int gain = gain(move);
+			if (gain == 0)
+				continue;
+			moves[i] = moves[captures];
+			int j = captures++;
+			for (; j > 0 && gain(moves[j - 1]) < gain; j--)
+				moves[j] = moves[j - 1];
+			moves[j] = move;
+		}
+		for (int i = nMoves - 1; i > captures; i--) {
+			int j = randomNumberGenerator(captures, i);
+			int move = moves[i];
+			moves[i] = moves[j];
+			moves[j] = move;
+		}
+	}
+
+	/**
+	 * @param move a move
+	 * @return the value of the piece it captures, plus one for reaching the last row
+	 */
+	private static int gain(int move) {
+		return Position.VALUE[Move.captured(move)] + (Move.isLastRow(move) ? 1 : 0);
+	}
+
+	/**
+	 * counts the virtual loss of the thread in a node, when threads share the tree
+	 * @param node the node
+	 */
+	private void addVirtualLoss(int node) {
+		if (virtualLoss != 0)
+			tree.update(node, virtualLoss, virtualLoss * VIRTUAL_LOSS);
 	}
 
 
 	/**
-	 * rollout function that simulates a random play until we have game over
-	 * @param node node to start
+	 * rollout function that simulates a random play until we have game over.
+	 * It plays on tmpBoard from where it is: every move is picked uniformly by the board among
+	 * the moves it counts, without writing them anywhere, with the xorshift random numbers of the
+	 * thread, and the board keeps the scores and the pieces up to date, so a rollout allocates nothing.
+	 * A rollout that reaches the ply limit is scored by evaluateHeuristic, and one in which a player
+	 * has gained the margin on the lead at the root is ended as if the game was over, won by that player.
+	 * Both count from the lead at the root, not from the lead of the game: when the game is decided already,
+	 * the rollouts still tell the moves that gain from the ones that lose
+	 * @param color the color of the player to move on tmpBoard
 	 * @return the evaluation cost of the terminal node
 	 */
-	public double rollout(Node node) {
-		Node tmp = node;
+	public double rollout(int color) {
 		double evaluation = 0;
-		//String oldBoard[][] = equalBoards(tmpBoard);
+		int plies = 0;
 		while(!gameOver()) {
-			ArrayList<String> moves = getAvailableMoves(tmp.state.board, tmp.state.color);
-			if (moves.isEmpty()) {
-				break;
+			if (rolloutMargin > 0) {
+				int lead = evaluateScore(tmpBoard, game.getMyColor()) - rootLead;
+				if (lead >= rolloutMargin || lead <= -rolloutMargin)
+					return result(lead);
 			}
-			String move = simulateRandomPlay(moves);
-			try {
-				makeMove(move, tmp.state.color);
-			} catch (Exception e) {
-				//System.out.println("1");
+			if (rolloutPlies > 0 && plies == rolloutPlies)
+				return evaluateHeuristic();
+			int move = tmpBoard.randomMove(color, nextRandom());
+			if (move == Move.NONE) {
+				break;
 			}
-			tmp = new Node(null, new State(tmpBoard, changeColor(tmp.state.color), move));
+			play(move);
+			color = changeColor(color);
+			plies++;
 		}
 
-		evaluation = evaluateMCTS(tmp.state.color);
-		tmpBoard = equalBoards(node.state.board);
+		evaluation = evaluateMCTS(color);
 		return evaluation;
 	}
 
+	/**
+	 * evaluation of a rollout stopped before the end of the game: the score plus the value of the
+	 * chess parts of the player minus the opponent's, less the same at the root, mapped to [-1, 1]
+	 * @return the evaluation, from the side of our player
+	 */
+	public double evaluateHeuristic() {
+		return Math.tanh((evaluateScore(tmpBoard, game.getMyColor()) - rootLead) / HEURISTIC_SCALE);
+	}
+
 	/**
 	 * better evaluate function for MCTS
 	 * @param color
 	 * @return the cost of the node
 	 */
 	public int evaluateMCTS(int color) {
-		int eval = evaluateScore(tmpBoard, color);
-		if (scoreWhite - scoreBlack == 0) 
-			return 0;
+		int scoreWhite = tmpBoard.getScore(Position.WHITE);
+		int scoreBlack = tmpBoard.getScore(Position.BLACK);
 		if(game.getMyColor() == 0)
-			if (scoreWhite-scoreBlack > 0) 
-				return 1;
-			else
-				return -3;
-		else
-			if(scoreBlack-scoreWhite > 0)
-				return 1;
-			else
-				return -3;
+			return result(scoreWhite - scoreBlack);
+		return result(scoreBlack - scoreWhite);
 	}
 
 	/**
-	 * function to update the values needed from all the visited nodes 
-	 * @param leaf node from where we start the back propagation
+	 * @param lead the lead of our player
+	 * @return the cost of a game our player finishes with this lead: 1 won, -3 lost, 0 draw
+	 */
+	private int result(int lead) {
+		if (lead == 0)
+			return 0;
+		if (lead > 0)
+			return 1;
+		return -3;
+	}
+
+	/**
+	 * function to update the values needed from all the visited nodes, taking back the virtual loss,
+	 * and with RAVE the AMAF statistics of their children. The evaluation is from the side of our
+	 * player and every node gets it from the side of the player who made its move, negated for the opponent
+	 * @param leaf node from where we start the back propagation, leafColor has the player to move there
 	 * @param evaluation value added in each visited node
 	 */
-	public void backPropagation(Node leaf, double evaluation) {
-		Node tmp = leaf;
-		while(tmp != null) {
-			tmp.state.cost += evaluation;
-			tmp.state.incrementVisitCount();
-			tmp = tmp.parent;
+	public void backPropagation(int leaf, double evaluation) {
+		int tmp = leaf;
+		double value = leafColor == game.getMyColor() ? -evaluation : evaluation;
+		while(tmp != Tree.NONE) {
+			tree.update(tmp, 1 - virtualLoss, value - virtualLoss * VIRTUAL_LOSS);
+			tmp = tree.parent(tmp);
+			value = -value;
 		}
+		if (rave > 0)
+			updateAmaf(leaf, evaluation);
+	}
+
+	/**
+	 * adds the rollout to the AMAF statistics of every child of the path whose move the player to
+	 * move at the parent made later in the iteration, in the tree or in the rollout. The path is
+	 * walked up from the leaf and the moves are marked from the last one back, so that at every
+	 * node the marked moves are the ones made from it on
+	 * @param leaf the node the rollout started from
+	 * @param evaluation the value of the rollout
+	 */
+	private void updateAmaf(int leaf, double evaluation) {
+		if (++stamp == 0) {
+			for (int[] colorSeen : seen)
+				Arrays.fill(colorSeen, 0);
+			stamp = 1;
+		}
+		int next = playedCount;
+		int node = leaf;
+		double value = leafColor == game.getMyColor() ? evaluation : -evaluation;	// for the player to move at the node
+		for (int depth = treeMoves; depth >= 0; depth--) {
+			while (next > depth) {
+				next--;
+				seen[next & 1][played[next] & 0xFFF] = stamp;	// the from and to squares of the move
+			}
+			for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child))
+				if (seen[depth & 1][tree.move(child) & 0xFFF] == stamp)
+					tree.updateAmaf(child, value);
+			node = tree.parent(node);
+			value = -value;
+		}
+	}
+
+	/**
+	 * makes a move on tmpBoard and, with RAVE, keeps it in the moves of the iteration
+	 * @param move the move
+	 */
+	private void play(int move) {
+		if (rave > 0) {
+			if (playedCount == played.length)
+				played = Arrays.copyOf(played, played.length * 2);
+			played[playedCount++] = move;
+		}
+		tmpBoard.makeMove(move);
 	}
 
 	/**
 	 * function that simulates the random play
 	 * @param moves available moves
+	 * @param nMoves the number of available moves
 	 * @return the move we are executing
 	 */
-	public String simulateRandomPlay(ArrayList<String> moves) {
-		Random random = new Random();
-		return moves.get(random.nextInt(moves.size()));
+	public int simulateRandomPlay(int[] moves, int nMoves) {
+		return moves[randomNumberGenerator(0, nMoves-1)];
+	}
+
+	/**
+	 * xorshift random numbers, every MCTS has its own so threads never share a generator
+	 * @return a random int
+	 */
+	int nextRandom() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return (int) (seed >>> 32);
+	}
+
+	/**
+	 * @param seed the start of the random numbers, the same seed gives the same search
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed == 0 ? 1 : seed;
 	}
 
 	/**
@@ -230,198 +895,45 @@ public class MCTS {
 	 * @param totalVisit total number of visits
 	 * @return the result of typou
 	 */
-	public double uctValue(int visitCount, int score, int totalVisit) {
+	public double uctValue(int visitCount, double score, int totalVisit) {
 		if (visitCount == 0) 
 			return MAX;
-		return ((double)score/(double)visitCount) + 1.41*Math.sqrt(Math.log(totalVisit/(double)visitCount));
+		return (score/(double)visitCount) + 1.41*Math.sqrt(Math.log(totalVisit/(double)visitCount));
 	}
 
 
 	/**
 	 *  Function that executes a move to tmpBoard
-	 * @param move is string that represents from which coordinates we are going to take a apwn and move it to its new coordinates
-	 * @param color of the player moving a pawn
-	 */
-	public void makeMove(String move, int color) {
-		int x1 = Integer.parseInt(move.substring(0, 1));
-		int y1 = Integer.parseInt(move.substring(1, 2));
-		int x2 = Integer.parseInt(move.substring(2, 3));
-		int y2 = Integer.parseInt(move.substring(3, 4));
-		String chesspart = "";
-
-		chesspart = Character.toString(tmpBoard[x1][y1].charAt(1));
-
-		boolean pawnLastRow = false;
-
-		// check if it is a move that has made a move to the last line
-		if(chesspart.equals("P"))
-			if( ((x1==rows-2 && x2==rows-1) && color == 0) || ((x1==1 && x2==0) && color == 1) )
-			{
-				tmpBoard[x2][y2] = " ";	// in a case an opponent's chess part has just been captured
-				tmpBoard[x1][y1] = " ";
-				pawnLastRow = true;
-				if (color == 0) {
-					scoreWhite++;
-				}
-				else
-					scoreBlack++;
-			}
-
-		if (tmpBoard[x2][y2].equals("P")) {
-			if(color == 0)
-				scoreWhite++;
-			else
-				scoreBlack++;
-		}
-
-
-		// otherwise
-		if(!pawnLastRow)
-		{
-			if(chesspart.equals("P")) {
-				if (color == 0) {
-					scoreWhite++;
-				}
-				else
-					scoreBlack++;
-			}
-			else if(chesspart.equals("K")) {
-				if (color == 0) {
-					scoreWhite+=8;
-				}
-				else
-					scoreBlack+=8;
-			}
-			else if(chesspart.equals("R")) {
-				if (color == 0) {
-					scoreWhite+=3;
-				}
-				else
-					scoreBlack+=3;
-			}
-			tmpBoard[x2][y2] = tmpBoard[x1][y1];
-			tmpBoard[x1][y1] = " ";
-		}
-
-
-		//		// check if a prize has been added in the game
-		//		if(prizeX != noPrize)
-		//			board[prizeX][prizeY] = "P";
-		//	}
-
-
-
-
-		//	tmpBoard[a][b] = " ";
-		//	if (tmpBoard[c][d].equals("P")) {
-		//		if(randomNumberGenerator(1, 100) > 5) {
-		//			if (color == 0) 
-		//				scoreWhite+=1;
-		//			else
-		//				scoreBlack+=1;
-		//		}
-		//	}
-
-
-		// add new prize
-		//				if (randomNumberGenerator(1, 100) < 20) {
-		//					while(true) {
-		//						int i = randomNumberGenerator(0, 6);
-		//						int j = randomNumberGenerator(0, 4);
-		//						if (tmpBoard[i][j].equals(" ")) 
-		//							break;
-		//						System.out.println("try to find  empty space to put prize");
-		//					}
-		//				}
-		// tmpBoard[c][d] = pawn;
+	 * @param move the packed move, from which coordinates we are going to take a apwn and move it to its new coordinates
+	 * @return the undo record that takes the move back
+	 */
+	public int makeMove(int move) {
+		return tmpBoard.makeMove(move);
 	}
 
 	/**
-	 * Finds if the game is over
+	 * Finds if the game is over, from the piece counts the board keeps up to date
 	 * @return true if game is over and false if game is not over
 	 */
 	public boolean gameOver() {
-		int numOfWhiteKings = 0;
-		int numOfBlackKings = 0;
-		int numOfWhitePawns = 0;
-		int numOfBlackPawns = 0;
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				switch (tmpBoard[i][j]) {
-				case "WK":
-					numOfWhiteKings++;
-					break;
-				case "BK":
-					numOfBlackKings++;
-					break;
-				case "BP":
-				case "BR":
-					numOfBlackPawns++;
-					break;
-				case "WP":
-				case "WR":
-					numOfWhitePawns++;
-					break;
-				default:
-					break;
-				}
-			}
-		}
-
-		if (numOfBlackKings == 0 || numOfWhiteKings == 0 || (numOfBlackPawns == 0 && numOfWhitePawns == 0)) 
-			return true;
-		return false;
+		return tmpBoard.isGameOver();
 	}
 
-	
 	/**
-	 * Heuristic function that evaluates score for each situation in the board
+	 * Heuristic function that evaluates score for each situation in the board:
+	 * score plus value of the chess parts left, of the player minus the opponent's
 	 * @param board
 	 * @param color
 	 * @return the value of each node
 	 */
-	public int evaluateScore(String [][] board, int color) {
-
-		int numOfBlackPawns = 0;
-		int numOfWhitePawns = 0;
-		int numOfWhiteKnights = 0;
-		int numOfBlackKnights = 0;
-		int numOfWhiteKings = 0;
-		int numOfBlackKings = 0;
-
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < columns; j++) {
-				switch (tmpBoard[i][j]) {
-				case "WP":
-					numOfWhitePawns++;
-					break;
-				case "WR":
-					numOfWhiteKnights++;
-					break;
-				case "WK":
-					numOfWhiteKings++;
-					break;
-				case "BP":
-					numOfBlackPawns++;
-				case "BR":
-					numOfBlackKnights++;
-				case "BK":
-					numOfBlackKings++;
-				default:
-					break;
-				}
-			}
-		}
-		int valueOfPawnsWhite = numOfWhitePawns + numOfWhiteKnights*3 + numOfWhiteKings*8;
-		int valueOfPawnsBlack = numOfBlackPawns + numOfBlackKnights*3 + numOfBlackKings*8;
-		if (game.getMyColor() == 0) 
-			return(scoreWhite + valueOfPawnsWhite)-(scoreBlack + valueOfPawnsBlack); 
-		return (valueOfPawnsBlack) - (valueOfPawnsWhite);
-
+	public int evaluateScore(Position board, int color) {
+		int valueWhite = board.getScore(Position.WHITE) + board.getMaterial(Position.WHITE);
+		int valueBlack = board.getScore(Position.BLACK) + board.getMaterial(Position.BLACK);
+		if (color == 0) 
+			return valueWhite - valueBlack; 
+		return valueBlack - valueWhite;
 	}
 
-
-
 	/**
 	 * FUNCTION that creates a random number between the range min,max
 	 * @param min
@@ -429,20 +941,16 @@ public class MCTS {
 	 * @return random number
 	 */
 	public int randomNumberGenerator(int min, int max) {
-		Random ran =new Random();
-		return ran.nextInt(max-min+1)+min;
+		return (int) (((nextRandom() & 0xFFFFFFFFL) * (max-min+1)) >>> 32)+min;
 	}
 
 	/**
 	 * Function that undoes a move in the tmp board
-	 * @param oldBoard the old board that wee want to have
-	 * @param oldScoreWhite the old score for white player
-	 * @param oldScoreBlack the old score for black player
+	 * @param move the packed move
+	 * @param undo the undo record makeMove returned
 	 */
-	public void undoMove(String[][] oldBoard, int oldScoreWhite, int oldScoreBlack) {
-		tmpBoard = equalBoards(oldBoard);
-		scoreWhite = oldScoreWhite;
-		scoreBlack = oldScoreBlack;
+	public void unmakeMove(int move, int undo) {
+		tmpBoard.unmakeMove(move, undo);
 	}
 
 
@@ -451,13 +959,8 @@ public class MCTS {
 	 * @param oldBoard
 	 * @return the new board
 	 */
-	public String[][] equalBoards(String[][] oldBoard) {
-		String [][] newBoard = new String[rows][columns];
-		for (int i = 0; i < rows; i++)
-			for(int j = 0; j < columns; j++)
-				newBoard[i][j] = oldBoard[i][j];
-
-		return newBoard;
+	public Position equalBoards(Position oldBoard) {
+		return oldBoard.copy();
 
 	}
 
@@ -465,436 +968,23 @@ public class MCTS {
 	/**
 	 * Function for returning all the available moves for white player
 	 * @param board the current board
-	 * @return an Arraylist of all the available moves
+	 * @param availableMoves the array the moves are written to
+	 * @return the number of the available moves
 	 */
-	private ArrayList<String> whiteMoves(String [][] board)
+	private int whiteMoves(Position board, int[] availableMoves)
 	{
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-
-		for(int i=0; i < rows; i++)
-		{
-			for(int j=0; j < columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-
-				// if it there is not a white chess part in this position then keep on searching
-				if(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-
-					// check if it can move one vertical position ahead
-					if (i != 0) {
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-					}
-
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-1) + Integer.toString(j);
-
-						availableMoves.add(move);
-					}
-
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j-1].charAt(0));						
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j-1);
-
-							availableMoves.add(move);
-						}											
-					}
-
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j+1].charAt(0));
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j+1);							
-							availableMoves.add(move);
-						}
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j-(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-
-						if(firstLetter.equals("W"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j+(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j-1);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j+1);
-
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
-		return availableMoves;
+		return board.whiteMoves(availableMoves);
 	}
 
-
+	
 	/**
 	 * function that gives as all the available moves of a black player
 	 * @param board the current board
-	 * @return all the available moves in an arraylist
+	 * @param availableMoves the array the moves are written to
+	 * @return the number of the available moves
 	 */
-	private ArrayList<String> blackMoves(String [][] board)
+	private int blackMoves(Position board, int[] availableMoves)
 	{
-		ArrayList<String> availableMoves = new ArrayList<String>();
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-
-		for(int i=0; i<rows; i++)
-		{
-			for(int j=0; j<columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-
-				// if it there is not a black chess part in this position then keep on searching
-				if(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-
-					// check if it can move one vertical position ahead
-					if (i !=6) {
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-					}
-
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+1) + Integer.toString(j);
-
-						availableMoves.add(move);
-					}
-
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j-1].charAt(0));
-
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j-1);
-
-							availableMoves.add(move);
-						}																	
-					}
-
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j+1].charAt(0));
-
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j+1);
-
-							availableMoves.add(move);
-						}
-
-
-
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i-(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i+(k+1)) + Integer.toString(j);
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j-(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-
-						if(firstLetter.equals("B"))
-							break;
-
-						move = Integer.toString(i) + Integer.toString(j) + 
-								Integer.toString(i) + Integer.toString(j+(k+1));
-
-						availableMoves.add(move);
-
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i-1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i+1) + Integer.toString(j);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j-1);
-
-							availableMoves.add(move);	
-						}
-					}
-
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-									Integer.toString(i) + Integer.toString(j+1);
-
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
-		return availableMoves;
+		return board.blackMoves(availableMoves);
 	}
-
-
 }
@@ -0,0 +1,188 @@
+package monteCarlo;
+
+import benchmark.Measurement;
+
+import bitboard.Move;
+import bitboard.Position;
+
+/**
+ * Measures the monte carlo search outside of a game: rollouts per second and heap
+ * bytes allocated by the rollout thread, then the tree of the search, the arena of Tree
+ * against a tree of Node and State objects with a board in every node, in playouts
+ * per second and nodes per GB of heap, then the arena with a table of positions shared by the
+ * transpositions, in nodes per board and bytes per board, then the heap bytes allocated by the
+ * iterations of a tree with room for their nodes, and last the playouts per second of the tree parallel
+ * and the root parallel search with 1, 2, 4... threads, up to the number of processors.
+ * It fails, with exit status 1, if the rollouts or the iterations allocate: an object per rollout or
+ * iteration is 16 bytes or more for every one, while the measurement allocates less than a byte per one.
+ * Usage: java monteCarlo.MCTSBenchmark [rollouts] [iterations] [max threads]
+ */
+public class MCTSBenchmark {
+
+	static ObjectTree objects;	// a field, so that the tree is not collected before its heap is measured
+	static final int TRANSPOSITION_POSITIONS = 1 << 16;
+
+	public static void main(String[] args) {
+		int rollouts = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		World world = new World();
+		MCTS mcts = new MCTS(world);
+		Position rootBoard = world.getBoard().copy();
+		mcts.tmpBoard = rootBoard.copy();
+		mcts.setRave(0);	// plain UCT like the Node/State tree; rollout() alone does not start an iteration to keep moves for
+
+		// warm up, see Measurement
+		for (int i = 0; i < rollouts; i++) {
+			mcts.tmpBoard.copyFrom(rootBoard);
+			mcts.rollout(0);
+		}
+
+		long measurement = Measurement.measurementBytes();
+		long bytes = Measurement.allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < rollouts; i++) {
+			mcts.tmpBoard.copyFrom(rootBoard);
+			mcts.rollout(0);
+		}
+		long time = System.nanoTime() - start;
+		bytes = Measurement.allocatedBytes() - bytes - measurement;
+		boolean allocates = bytes >= rollouts;
+
+		System.out.println(rollouts + " rollouts in " + time / 1000000 + " ms, " + (long) (rollouts / (time / 1e9)) + " rollouts/sec");
+		System.out.println("allocated " + bytes + " bytes, " + (double) bytes / rollouts + " bytes per rollout");
+
+		for (int run = 0; run < 2; run++) {
+			boolean measure = run == 1;	// the first run warms up
+
+			mcts.tree = new Tree(rootBoard.copy());
+			mcts.totalVisits = 0;
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				mcts.iterate(mcts.tree, 0);
+			time = System.nanoTime() - start;
+			long nodes = mcts.tree.size();
+			if (measure)
+				report("arena tree", iterations, time, nodes, mcts.tree.memoryBytes());	// the arrays are the whole tree, free room included
+			mcts.tree = null;
+
+			mcts.tree = new Tree(rootBoard.copy());
+			mcts.tree.useTranspositions(TRANSPOSITION_POSITIONS);
+			mcts.totalVisits = 0;
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				mcts.iterate(mcts.tree, 0);
+			time = System.nanoTime() - start;
+			if (measure) {
+				Tree tree = mcts.tree;
+				System.out.println("transpositions : " + iterations + " playouts in " + time / 1000000 + " ms, " + (long) (iterations / (time / 1e9)) + " playouts/sec, "
+						+ tree.size() + " nodes on " + tree.positions() + " boards, " + String.format("%.2f", (double) tree.size() / tree.positions()) + " nodes per board, "
+						+ "table of " + TRANSPOSITION_POSITIONS + " boards in " + tree.positionBytes() / 1024 + " KB, " + tree.positionBytes() / TRANSPOSITION_POSITIONS + " bytes per board");
+			}
+			mcts.tree = null;
+
+			long heap = Measurement.usedHeap();
+			objects = new ObjectTree(mcts, rootBoard);
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				objects.iterate();
+			time = System.nanoTime() - start;
+			nodes = objects.nodes;
+			heap = Measurement.usedHeap() - heap;
+			if (measure)
+				report("Node/State tree", iterations, time, nodes, heap);
+			objects = null;
+		}
+
+		// the iterations alone, on a tree that has room for their nodes and moves and does not grow
+		mcts.tree = new Tree(rootBoard.copy());
+		mcts.tree.reserve(8 * iterations);
+		mcts.totalVisits = 0;
+		bytes = Measurement.allocatedBytes();
+		for (int i = 0; i < iterations; i++)
+			mcts.iterate(mcts.tree, 0);
+		bytes = Measurement.allocatedBytes() - bytes - measurement;
+		allocates |= bytes >= iterations;
+		System.out.println("iterations of a reserved tree : allocated " + bytes + " bytes, " + (double) bytes / iterations + " bytes per iteration");
+		mcts.tree = null;
+
+		mcts.setRave(MCTS.RAVE);
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		double serial = 0;
+		for (int mode = MCTS.TREE_PARALLEL; mode <= MCTS.ROOT_PARALLEL; mode++)
+		for (int threads = mode == MCTS.TREE_PARALLEL ? 1 : 2; threads <= maxThreads; threads *= 2) {
+			mcts.setThreads(threads);
+			mcts.setParallelMode(mode);
+			mcts.tree = new Tree(rootBoard.copy());
+			mcts.totalVisits = 0;
+			start = System.nanoTime();
+			mcts.monteCarlo(rootBoard, 0, mcts.tree);
+			time = System.nanoTime() - start;
+			double playouts = mcts.totalVisits / (time / 1e9);
+			if (threads == 1)
+				serial = playouts;
+			System.out.println((threads == 1 ? "serial" : mode == MCTS.TREE_PARALLEL ? "tree parallel" : "root parallel") + ", " + threads + " threads : " + (long) playouts + " playouts/sec, scaling " + String.format("%.2f", playouts / serial));
+		}
+		mcts.setThreads(1);
+		if (allocates) {
+			System.out.println("FAILED: the rollouts or the iterations allocate");
+			System.exit(1);
+		}
+	}
+
+	static void report(String name, int iterations, long time, long nodes, long heap) {
+		System.out.println(name + " : " + iterations + " playouts in " + time / 1000000 + " ms, " + (long) (iterations / (time / 1e9)) + " playouts/sec, "
+				+ nodes + " nodes in " + heap / 1024 + " KB, " + (heap / nodes) + " bytes per node, " + (long) (1e9 / ((double) heap / nodes)) + " nodes per GB");
+	}
+
+	/**
+	 * The search the arena replaced, a tree of Node and State objects, every node with a copy of its board
+	 */
+	static class ObjectTree {
+		MCTS mcts;
+		Node root;
+		int[] moves = new int[Move.MAX_MOVES];
+		long nodes = 1;
+
+		ObjectTree(MCTS mcts, Position rootBoard) {
+			this.mcts = mcts;
+			root = new Node(null, new State(rootBoard.copy(), 0, Move.NONE));
+			mcts.totalVisits = 0;
+		}
+
+		void iterate() {
+			Node leaf = root;
+			while (!leaf.isLeaf()) {
+				double best = Double.NEGATIVE_INFINITY;
+				Node next = leaf.children.get(0);
+				for (Node child : leaf.children) {
+					double uct = mcts.uctValue(child.state.visitCount, child.state.cost, mcts.totalVisits);
+					if (best < uct) {
+						best = uct;
+						next = child;
+					}
+				}
+				leaf = next;
+			}
+
+			mcts.tmpBoard.copyFrom(leaf.state.board);
+			int nMoves = mcts.getAvailableMoves(mcts.tmpBoard, leaf.state.color, moves);
+			if (!mcts.gameOver() && nMoves != 0) {
+				for (int i = 0; i < nMoves; i++) {
+					int undo = mcts.makeMove(moves[i]);
+					leaf.children.add(new Node(leaf, new State(mcts.tmpBoard.copy(), mcts.changeColor(leaf.state.color), moves[i])));
+					mcts.unmakeMove(moves[i], undo);
+				}
+				nodes += nMoves;
+				leaf = leaf.children.get(mcts.randomNumberGenerator(0, nMoves - 1));
+			}
+
+			mcts.tmpBoard.copyFrom(leaf.state.board);
+			double evaluation = mcts.rollout(leaf.state.color);
+			for (Node node = leaf; node != null; node = node.parent) {
+				node.state.cost += evaluation;
+				node.state.incrementVisitCount();
+			}
+			mcts.totalVisits++;
+		}
+	}
+}
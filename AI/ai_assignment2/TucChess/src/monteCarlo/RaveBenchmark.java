@@ -0,0 +1,81 @@
+package monteCarlo;
+
+import bitboard.Move;
+import bitboard.Position;
+
+/**
+ * Plays monte carlo with RAVE against monte carlo without it, from the start position and without
+ * prizes, every game twice with the colors swapped. The first match gives both players the same
+ * playouts per move, the second one the same time per move, so that the cost of the AMAF updates counts.
+ * A game that reaches the ply limit is decided by the score. The players are seeded by the game, so
+ * the match at equal playouts is the same on every run.
+ * Usage: java monteCarlo.RaveBenchmark [games] [playouts per move] [ms per move] [rave equivalence]
+ */
+public class RaveBenchmark {
+
+	static final int MAX_PLIES = 120;
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int playouts = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int millis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		int rave = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+
+		match("equal playouts, " + playouts + " per move", games, playouts, 0, rave);
+		match("equal time, " + millis + " ms per move", games, 0, millis, rave);
+	}
+
+	/**
+	 * @param name the name of the match
+	 * @param games the games, half of them with RAVE as white
+	 * @param playouts the playouts per move, 0 to search by time
+	 * @param millis the time per move
+	 * @param rave the RAVE equivalence of the RAVE player
+	 */
+	static void match(String name, int games, int playouts, int millis, int rave) {
+		int wins = 0, draws = 0, losses = 0;
+		long[] iterations = new long[2];	// playouts of the player without and with RAVE
+		long[] moves = new long[2];
+		for (int game = 0; game < games; game++) {
+			int raveColor = game % 2;
+			MCTS[] players = new MCTS[2];
+			for (int color = 0; color < 2; color++) {
+				World world = new World();
+				world.setMyColor(color);
+				players[color] = new MCTS(world);
+				players[color].setRave(color == raveColor ? rave : 0);
+				players[color].setSeed(game * 2 + color + 1);
+				players[color].setTimeBudget(playouts > 0 ? 0 : millis);
+				players[color].setIterationLimit(playouts);
+			}
+
+			Position board = new World().getBoard().copy();
+			board.setColor(Position.WHITE);
+			for (int ply = 0; ply < MAX_PLIES && !board.isGameOver(); ply++) {
+				int color = ply % 2;
+				MCTS player = players[color];
+				player.tree = new Tree(board.copy());
+				player.totalVisits = 0;
+				player.monteCarlo(board, color, player.tree);
+				int move = player.bestMove(player.tree);
+				int side = color == raveColor ? 1 : 0;
+				iterations[side] += player.totalVisits;
+				moves[side]++;
+				if (move == Move.NONE)
+					break;
+				board.makeMove(move);
+			}
+
+			int lead = board.getScore(raveColor) - board.getScore(1 - raveColor);
+			if (lead > 0)
+				wins++;
+			else if (lead < 0)
+				losses++;
+			else
+				draws++;
+		}
+		System.out.println(name + " : RAVE won " + wins + ", drew " + draws + ", lost " + losses + " of " + games
+				+ ", score " + String.format("%.1f%%", 100.0 * (wins + draws / 2.0) / games)
+				+ ", playouts per move " + iterations[1] / Math.max(1, moves[1]) + " with RAVE, " + iterations[0] / Math.max(1, moves[0]) + " without");
+	}
+}
@@ -0,0 +1,63 @@
+package monteCarlo;
+
+import java.util.HashSet;
+
+import bitboard.Position;
+
+/**
+ * Checks that the rollouts still play and the search still tells the moves apart once the game
+ * is decided: from the start board with white ahead in score by the rollout margin and more, for
+ * our player on either side, every rollout has to make a move and end with more than one value,
+ * and the root children of a search have to end with more than one mean value.
+ * Exits with status 1 if one of them does not.
+ * Usage: java monteCarlo.RolloutCheck [rollouts] [iterations]
+ */
+public class RolloutCheck {
+
+	static final int[] LEADS = { MCTS.ROLLOUT_MARGIN, MCTS.ROLLOUT_MARGIN + 4 };
+
+	public static void main(String[] args) {
+		int rollouts = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		boolean failed = false;
+
+		for (int lead : LEADS) {
+			for (int myColor = Position.WHITE; myColor <= Position.BLACK; myColor++) {
+				World world = new World();
+				world.setMyColor(myColor);
+				Position board = world.getBoard().copy();
+				board.setScores(lead, 0);
+				board.setColor(Position.WHITE);
+				MCTS mcts = new MCTS(world);
+				mcts.setSeed(1);
+
+				int played = 0;
+				HashSet<Double> values = new HashSet<Double>();
+				mcts.rootLead = mcts.evaluateScore(board, myColor);
+				for (int i = 0; i < rollouts; i++) {
+					mcts.tmpBoard.copyFrom(board);
+					values.add(mcts.rollout(Position.WHITE));
+					if (mcts.tmpBoard.getKey() != board.getKey())
+						played++;
+				}
+
+				mcts.setTimeBudget(0);
+				mcts.setIterationLimit(iterations);
+				mcts.tree = new Tree(board.copy());
+				mcts.monteCarlo(board, Position.WHITE, mcts.tree);
+				Tree tree = mcts.tree;
+				HashSet<Double> means = new HashSet<Double>();
+				for (int child = tree.firstChild(tree.root); child != Tree.NONE; child = tree.nextSibling(child))
+					means.add(tree.value(child) / tree.visits(child));
+
+				boolean ok = played == rollouts && values.size() > 1 && means.size() > 1;
+				failed |= !ok;
+				System.out.println("white ahead by " + lead + ", our player " + (myColor == Position.WHITE ? "white" : "black") + " : "
+						+ played + " of " + rollouts + " rollouts made a move, " + values.size() + " rollout values, "
+						+ means.size() + " means of " + tree.childCount(tree.root) + " root children" + (ok ? "" : " FAILED"));
+			}
+		}
+		if (failed)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,101 @@
+package monteCarlo;
+
+/**
+ * Measures the selection of a child at wide nodes: selectChild, with ln N computed once for the
+ * node and the reciprocal visits of the tree, against the UCT value computed from scratch for every
+ * child as selection did before, a logarithm and the divisions for every child. The nodes are made
+ * up, every child with random visits, value and AMAF statistics, and RAVE is on for both.
+ * Usage: java monteCarlo.SelectionBenchmark [selections]
+ */
+public class SelectionBenchmark {
+
+	static final int[] WIDTHS = { 8, 16, 32, 64, 256 };
+
+	public static void main(String[] args) {
+		int selections = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		MCTS mcts = new MCTS(new World());
+		mcts.setSeed(1);
+		mcts.setRave(MCTS.RAVE > 0 ? MCTS.RAVE : 300);
+		long check = 0;		// the selected children are added up, so that the work is not optimized away
+
+		for (int run = 0; run < 2; run++) {
+			boolean measure = run == 1;	// the first run warms up
+			for (int width : WIDTHS) {
+				Tree tree = wideNode(mcts, width);
+				int repeat = Math.max(1, selections / width);
+
+				long start = System.nanoTime();
+				for (int i = 0; i < repeat; i++)
+					check += previousSelection(mcts, tree, tree.root);
+				long previous = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				for (int i = 0; i < repeat; i++)
+					check += mcts.selectChild(tree, tree.root);
+				long kernel = System.nanoTime() - start;
+
+				if (measure)
+					System.out.println(width + " children : " + String.format("%.1f", (double) previous / repeat) + " ns per selection before, "
+							+ String.format("%.1f", (double) kernel / repeat) + " ns with selectChild, "
+							+ String.format("%.2f", (double) kernel / repeat / width) + " ns per child, speedup " + String.format("%.2f", (double) previous / kernel));
+			}
+		}
+		System.out.println("check " + check);
+	}
+
+	/**
+	 * @param mcts the search, for its random numbers
+	 * @param width the children of the root
+	 * @return a tree of a root with the children, every one visited 1 to 1000 times
+	 */
+	static Tree wideNode(MCTS mcts, int width) {
+		Tree tree = new Tree(new World().getBoard().copy());
+		int[] moves = new int[width];
+		for (int i = 0; i < width; i++)
+			moves[i] = i + 1;
+		tree.setMoves(tree.root, moves, width);
+		for (int i = 0; i < width; i++) {
+			int child = tree.addChild(tree.root);
+			int visits = mcts.randomNumberGenerator(1, 1000);
+			tree.update(child, visits, visits * (mcts.randomNumberGenerator(0, 2000) / 1000.0 - 1));
+			tree.update(tree.root, visits, 0);
+			for (int amaf = mcts.randomNumberGenerator(1, 200); amaf > 0; amaf--)
+				tree.updateAmaf(child, mcts.randomNumberGenerator(0, 1));
+		}
+		return tree;
+	}
+
+	/**
+	 * the selection of a child before selectChild: the UCT value of every child computed on its own,
+	 * from the visits of the root, with its logarithm and divisions
+	 * @param mcts the search
+	 * @param tree the tree
+	 * @param node the node
+	 * @return the child with the highest UCT value
+	 */
+	static int previousSelection(MCTS mcts, Tree tree, int node) {
+		double best = Double.NEGATIVE_INFINITY;
+		int totalVisit = tree.visits(tree.root);
+		int next = Tree.NONE;
+		int rave = MCTS.RAVE > 0 ? MCTS.RAVE : 300;
+		for (int child = tree.firstChild(node); child != Tree.NONE; child = tree.nextSibling(child)) {
+			if (tree.proven(child) == Tree.LOSS)
+				continue;
+			int visitCount = tree.visits(child);
+			double score = tree.value(child);
+			double uct;
+			if (visitCount == 0)
+				uct = MCTS.MAX;
+			else {
+				double beta = Math.sqrt(rave / (3.0 * visitCount + rave));
+				double value = (1 - beta) * score / visitCount + beta * tree.amafValue(child) / tree.amafVisits(child);
+				uct = value + 1.41 * Math.sqrt(Math.log(totalVisit / (double) visitCount));
+			}
+			if (best < uct) {
+				best = uct;
+				next = child;
+			}
+		}
+		return next;
+	}
+}
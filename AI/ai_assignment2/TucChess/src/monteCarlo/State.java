@@ -1,6 +1,8 @@
 package monteCarlo;
 
 import java.util.ArrayList;
+
+import bitboard.Position;
 /**
  * State class 
  * Contains all the needed value for each node
@@ -9,11 +11,11 @@ import java.util.ArrayList;
  */
 public class State {
 	
-	String[][] board;
+	Position board;
 	int color;
 	int visitCount;
 	int cost;
-	String move;
+	int move;
 	int scoreBlack;
 	int scoreWhite;
 	
@@ -23,7 +25,7 @@ public class State {
 	 * @param color color of player 
 	 * @param move the move that got us to this situation
 	 */
-	public State(String [][] board, int color, String move) {
+	public State(Position board, int color, int move) {
 		this.move = move;
 		this.board = board;
 		this.color = color;
@@ -1,15 +1,594 @@
 package monteCarlo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import bitboard.Move;
+import bitboard.Position;
+
 /**
- * Class for a tree which contains nodes
- * @author gskoulas
+ * Class for a tree which contains nodes.
+ * The nodes live in parallel primitive arrays and a node is its int id, the index in them.
+ * The children of a node are a list, from firstChild through nextSibling, and they are made
+ * one at a time: the moves of a node are generated the first time it is expanded and kept,
+ * compactly, in the untried pool, until a visit takes the next one and makes its child.
+ * No node keeps a board: only the board of the root is kept, the board of any other node
+ * is found by making the moves from the root down to it.
+ * Besides the statistics of the rollouts through it, a node keeps the all moves as first (AMAF)
+ * statistics of its move: the rollouts in which the player to move at the parent made the move
+ * anywhere after the parent, for RAVE. The values of a node are from the side of the player who
+ * made its move, so that selection maximises at every node, and a node whose game result is
+ * known is proven, WIN or LOSS for that player.
  *
+ * With transpositions on, the tree also has a table of positions, open addressing by positionKey,
+ * and every node is linked to the entry of its board: the visits and value of a node are then the
+ * statistics of its edge, the move from its parent, while the entry gathers the rollouts of every
+ * node with the same board and score difference, whatever the order of the moves that led there.
+ * The table has a fixed capacity, a node whose board finds no free entry keeps only its own statistics;
+ * promote builds it again from the nodes it keeps, so that the boards no longer reachable free their entries.
+ *
+ * The tree may be shared by searching threads: the statistics are updated atomically, a node
+ * is expanded by the one thread that holds its lock, and a child is published by setting
+ * firstChild last. A shared tree does not grow, reserve() gives it its capacity before it is shared,
+ * and promote keeps it for the searches of the next moves
  */
 public class Tree {
-	
-	Node root;
-	
-	public Tree(Node root) {
-		this.root = root;
+
+	public static final int NONE = -1;		// id of no node, the parent of the root
+	public static final int WIN = 1;		// proven won for the player who made the move of the node
+	public static final int LOSS = -1;		// proven lost for the player who made the move of the node
+	private static final int NODE_BYTES = 4 + 8 + 8 + 4 + 8 + 4 + 4 + 4 + 4 + 4 + 4 + 4 + 4 + 4;
+	private static final int HEADER = 3;		// ints of an entry of the pool before its moves
+	private static final int LOCKS = 1 << 12;	// expansion locks, a node uses the one of its id modulo LOCKS
+	private static final int POSITION_BYTES = 8 + 4 + 8;
+	private static final int PROBES = 16;		// entries looked at for a key before the table counts as full
+	private static final long SCORE_KEY = 0x9E3779B97F4A7C15L;	// odd multiplier that spreads the score difference over the key
+
+	Position rootBoard;		// the board of the root, with its scores and player to move
+	int root;
+	private int size;						// the number of nodes
+	private AtomicIntegerArray visits;		// visit count of every node
+	private double[] reciprocal;			// 1 / visits, 0 before the first visit, for selection
+	private AtomicLongArray value;			// total value of the rollouts through every node, the bits of a double
+	private AtomicIntegerArray amafVisits;	// rollouts in which the move of the node was played after the parent
+	private AtomicLongArray amafValue;		// their total value, the bits of a double
+	private int[] move;						// the move that got us from the parent to the node
+	private int[] parent;
+	private AtomicIntegerArray firstChild;	// the child made last, NONE before the node has children
+	private int[] nextSibling;				// the child of the parent made before this one, NONE for the first
+	private int[] childCount;
+	private int[] proven;					// WIN, LOSS or 0 when the result of the node is not known
+	private int[] untried;					// where the moves of the node start in the pool, NONE before they are generated
+	private int[] position;					// the entry of the board of the node in the table of positions, NONE without one
+	private int[] renumber;					// the new id of every node while promote compacts the tree, NONE for a dropped one
+	private int[] pool;						// for every node with generated moves: their number, how many have a child, the node, the moves
+	private int poolSize;
+	private final AtomicIntegerArray locks = new AtomicIntegerArray(LOCKS);
+	boolean shared = false;					// threads search the tree, it must not grow
+	private AtomicLongArray positionKeys;	// Zobrist key of every entry, 0 for a free one; null with transpositions off
+	private AtomicIntegerArray positionVisits;
+	private AtomicLongArray positionValue;	// the bits of a double
+	private final AtomicInteger positions = new AtomicInteger();
+
+	/**
+	 * @param rootBoard the board of the root, the tree keeps it
+	 */
+	public Tree(Position rootBoard) {
+		this.rootBoard = rootBoard;
+		allocate(1024);
+		pool = new int[4096];
+		root = newNode(NONE, Move.NONE);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int visits(int node) {
+		return visits.get(node);
+	}
+
+	/**
+	 * @param node the node
+	 * @return 1 / visits, 0 before the first visit. Written after every update of the visits, a thread may
+	 * read it a visit late while other threads update the node
+	 */
+	public double reciprocalVisits(int node) {
+		return reciprocal[node];
+	}
+
+	public double value(int node) {
+		return Double.longBitsToDouble(value.get(node));
+	}
+
+	public int amafVisits(int node) {
+		return amafVisits.get(node);
+	}
+
+	public double amafValue(int node) {
+		return Double.longBitsToDouble(amafValue.get(node));
+	}
+
+	public int move(int node) {
+		return move[node];
+	}
+
+	public int parent(int node) {
+		return parent[node];
+	}
+
+	/**
+	 * @param node the node
+	 * @return the first child of the list of children, NONE if the node has no children
+	 */
+	public int firstChild(int node) {
+		return firstChild.get(node);
+	}
+
+	/**
+	 * @param child a child
+	 * @return the next child of the same parent, NONE after the last one
+	 */
+	public int nextSibling(int child) {
+		return nextSibling[child];
+	}
+
+	public int childCount(int node) {
+		return childCount[node];
+	}
+
+	/**
+	 * @param node the node
+	 * @return WIN or LOSS for the player who made the move of the node, 0 if the result is not proven
+	 */
+	public int proven(int node) {
+		return proven[node];
+	}
+
+	/**
+	 * @param node the node
+	 * @param result WIN or LOSS for the player who made the move of the node
+	 */
+	public void setProven(int node, int result) {
+		proven[node] = result;
+	}
+
+	/**
+	 * turns transpositions on, with a table of positions of a fixed capacity. The boards of the
+	 * nodes made from now on are looked up in it, the root is the first one
+	 * @param capacity the number of positions, rounded down to a power of two
+	 */
+	public void useTranspositions(int capacity) {
+		capacity = Integer.highestOneBit(Math.max(PROBES, capacity));
+		positionKeys = new AtomicLongArray(capacity);
+		positionVisits = new AtomicIntegerArray(capacity);
+		positionValue = new AtomicLongArray(capacity);
+		positions.set(0);
+		setPosition(root, positionKey(rootBoard));
+	}
+
+	/**
+	 * @param board a board
+	 * @return the key of the board in the table of positions: its Zobrist key, which has the pieces, the prizes
+	 * and the player to move, mixed with the score difference, so that the same board reached with a prize
+	 * taken by either player is two positions, as the rollouts from them are scored differently
+	 */
+	public static long positionKey(Position board) {
+		return board.getKey() ^ (board.getScore(Position.WHITE) - board.getScore(Position.BLACK)) * SCORE_KEY;
+	}
+
+	/**
+	 * @return true if the nodes share the statistics of their boards
+	 */
+	public boolean hasTranspositions() {
+		return positionKeys != null;
+	}
+
+	/**
+	 * links a node to the entry of its board, found or added by key
+	 * @param node the node
+	 * @param key the positionKey of the board of the node
+	 */
+	public void setPosition(int node, long key) {
+		if (positionKeys == null)
+			return;
+		int entry = findPosition(key);
+		if (entry != NONE)
+			position[node] = entry;
+	}
+
+	/**
+	 * @param key a positionKey
+	 * @return the entry of the key in the table of positions, added if it is not there, NONE if the table is full around it
+	 */
+	private int findPosition(long key) {
+		if (key == 0)	// 0 marks a free entry
+			return NONE;
+		int mask = positionKeys.length() - 1;
+		for (int i = 0; i < PROBES; i++) {
+			int index = (int) (key + i) & mask;
+			long entryKey = positionKeys.get(index);
+			if (entryKey == 0 && positionKeys.compareAndSet(index, 0, key)) {
+				positions.incrementAndGet();
+				return index;
+			}
+			if (entryKey == key || positionKeys.get(index) == key)
+				return index;
+		}
+		return NONE;
+	}
+
+	/**
+	 * builds the table of positions again from the entries of the first nodes, the ones promote kept,
+	 * with the statistics they had. The entries of the boards of the dropped nodes are not carried over
+	 * @param nodes the number of nodes
+	 */
+	private void rebuildPositions(int nodes) {
+		AtomicLongArray oldKeys = positionKeys;
+		AtomicIntegerArray oldVisits = positionVisits;
+		AtomicLongArray oldValue = positionValue;
+		positionKeys = new AtomicLongArray(oldKeys.length());
+		positionVisits = new AtomicIntegerArray(oldKeys.length());
+		positionValue = new AtomicLongArray(oldKeys.length());
+		positions.set(0);
+		for (int node = 0; node < nodes; node++) {
+			int old = position[node];
+			if (old == NONE)
+				continue;
+			int entry = findPosition(oldKeys.get(old));
+			position[node] = entry;
+			if (entry != NONE && positionVisits.get(entry) == 0) {	// the first node of the board brings its statistics
+				positionVisits.set(entry, oldVisits.get(old));
+				positionValue.set(entry, oldValue.get(old));
+			}
+		}
 	}
 
+	/**
+	 * @param node the node
+	 * @return the mean value of the rollouts through the board of the node, by any path, from the side of
+	 * the player who made its move. Without an entry, the mean value of the node; 0 before any rollout
+	 */
+	public double mean(int node) {
+		int entry = position[node];
+		int n = entry == NONE ? visits.get(node) : positionVisits.get(entry);
+		if (n == 0)
+			return 0;
+		return Double.longBitsToDouble(entry == NONE ? value.get(node) : positionValue.get(entry)) / n;
+	}
+
+	/**
+	 * @return the number of boards in the table of positions
+	 */
+	public int positions() {
+		return positions.get();
+	}
+
+	/**
+	 * @param node the node
+	 * @return true if the node has no children
+	 */
+	public boolean isLeaf(int node) {
+		return firstChild.get(node) == NONE;
+	}
+
+	/**
+	 * @param node the node
+	 * @return true if the moves of the node have been generated
+	 */
+	public boolean hasMoves(int node) {
+		return untried[node] != NONE;
+	}
+
+	/**
+	 * @param node the node, with generated moves
+	 * @return the number of moves of the node without a child yet
+	 */
+	public int untriedCount(int node) {
+		int start = untried[node];
+		return pool[start] - pool[start + 1];
+	}
+
+	/**
+	 * adds visits and value to a node, and to the entry of its board
+	 * @param node the node
+	 * @param visitCount the visits
+	 * @param amount the value
+	 */
+	public void update(int node, int visitCount, double amount) {
+		int n = add(visits, value, node, visitCount, amount);
+		reciprocal[node] = n > 0 ? 1.0 / n : 0;
+		int entry = position[node];
+		if (entry != NONE)
+			add(positionVisits, positionValue, entry, visitCount, amount);
+	}
+
+	/**
+	 * @return the visits after the update
+	 */
+	private static int add(AtomicIntegerArray visits, AtomicLongArray value, int index, int visitCount, double amount) {
+		int n = visits.addAndGet(index, visitCount);
+		while (true) {
+			long bits = value.get(index);
+			long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + amount);
+			if (value.compareAndSet(index, bits, newBits))
+				return n;
+		}
+	}
+
+	/**
+	 * adds a rollout to the AMAF statistics of a node
+	 * @param node the node
+	 * @param amount the value of the rollout
+	 */
+	public void updateAmaf(int node, double amount) {
+		amafVisits.incrementAndGet(node);
+		while (true) {
+			long bits = amafValue.get(node);
+			long newBits = Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + amount);
+			if (amafValue.compareAndSet(node, bits, newBits))
+				return;
+		}
+	}
+
+	/**
+	 * locks a node for expanding it
+	 * @param node the node
+	 * @return true if the calling thread may expand the node, false if another one is doing it
+	 */
+	public boolean lock(int node) {
+		return locks.compareAndSet(node & (LOCKS - 1), 0, 1);
+	}
+
+	/**
+	 * releases a node locked for expanding
+	 * @param node the node
+	 */
+	public void unlock(int node) {
+		locks.set(node & (LOCKS - 1), 0);
+	}
+
+	/**
+	 * keeps the moves of a node, the order they are given in is the order their children are made
+	 * @param node the node, locked if the tree is shared
+	 * @param moves the moves of the player to move at the node
+	 * @param nMoves the number of moves
+	 * @return false if the tree is full
+	 */
+	public boolean setMoves(int node, int[] moves, int nMoves) {
+		int start = allocatePool(nMoves + HEADER);
+		if (start == NONE)
+			return false;
+		pool[start] = nMoves;
+		pool[start + 1] = 0;
+		pool[start + 2] = node;
+		System.arraycopy(moves, 0, pool, start + HEADER, nMoves);
+		untried[node] = start;
+		return true;
+	}
+
+	/**
+	 * makes the child of the next untried move of a node
+	 * @param node the node, with generated moves, locked if the tree is shared
+	 * @return the child, NONE if every move has a child or the tree is full
+	 */
+	public int addChild(int node) {
+		int start = untried[node];
+		if (pool[start + 1] == pool[start])
+			return NONE;
+		int child = newNode(node, pool[start + HEADER + pool[start + 1]]);
+		if (child == NONE)
+			return NONE;
+		pool[start + 1]++;
+		childCount[node]++;
+		nextSibling[child] = firstChild.get(node);
+		firstChild.set(node, child);
+		return child;
+	}
+
+	/**
+	 * makes the child of a given untried move of a node, the move is taken out of the order of the untried ones
+	 * @param node the node, with generated moves, locked if the tree is shared
+	 * @param childMove the move
+	 * @return the child, NONE if the move is not an untried move of the node or the tree is full
+	 */
+	public int addChild(int node, int childMove) {
+		int start = untried[node];
+		int next = start + HEADER + pool[start + 1];
+		for (int i = next; i < start + HEADER + pool[start]; i++) {
+			if (pool[i] == childMove) {
+				pool[i] = pool[next];
+				pool[next] = childMove;
+				return addChild(node);
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * makes a child of the root the new root: its subtree is moved to the front of the arrays,
+	 * in place and in the order of the ids, the rest of the tree is dropped, with the positions of
+	 * its boards, and the root board follows the move. The arrays keep their capacity, so a tree reserved for threads stays reserved.
+	 * A node is made after its parent, so the subtree of the child is the nodes from the child on
+	 * whose parent is kept, and the new id of a node is never above the old one
+	 * @param child the child of the root
+	 */
+	public void promote(int child) {
+		rootBoard.makeMove(move[child]);
+		Arrays.fill(renumber, 0, size, NONE);
+		int tail = 0;
+		for (int old = child; old < size; old++)
+			if (old == child || parent[old] != NONE && renumber[parent[old]] != NONE)
+				renumber[old] = tail++;
+
+		for (int old = child; old < size; old++) {
+			int i = renumber[old];
+			if (i == NONE)
+				continue;
+			visits.set(i, visits.get(old));
+			reciprocal[i] = reciprocal[old];
+			value.set(i, value.get(old));
+			amafVisits.set(i, amafVisits.get(old));
+			amafValue.set(i, amafValue.get(old));
+			move[i] = move[old];
+			parent[i] = i == 0 ? NONE : renumber[parent[old]];
+			firstChild.set(i, firstChild.get(old));		// old ids, the children come later
+			nextSibling[i] = i == 0 ? NONE : nextSibling[old];
+			childCount[i] = childCount[old];
+			proven[i] = proven[old];
+			untried[i] = NONE;
+			position[i] = position[old];
+		}
+		for (int i = 0; i < tail; i++) {
+			int first = firstChild.get(i);
+			firstChild.set(i, first == NONE ? NONE : renumber[first]);
+			if (nextSibling[i] != NONE)
+				nextSibling[i] = renumber[nextSibling[i]];
+		}
+
+		// the entries of the pool are in the order the moves were generated, they are moved down the same way
+		int newPoolSize = 0;
+		for (int start = 0, length; start < poolSize; start += length) {
+			length = pool[start] + HEADER;
+			int node = renumber[pool[start + 2]];
+			if (node == NONE)
+				continue;
+			System.arraycopy(pool, start, pool, newPoolSize, length);
+			pool[newPoolSize + 2] = node;
+			untried[node] = newPoolSize;
+			newPoolSize += length;
+		}
+		poolSize = newPoolSize;
+		if (positionKeys != null)
+			rebuildPositions(tail);
+		move[0] = Move.NONE;
+		size = tail;
+		root = 0;
+	}
+
+	/**
+	 * makes room for a number of nodes, before the tree is shared
+	 * @param nodes the number of nodes
+	 */
+	public void reserve(int nodes) {
+		if (nodes > move.length)
+			grow(nodes);
+		if (nodes * 4 > pool.length)
+			pool = Arrays.copyOf(pool, nodes * 4);
+	}
+
+	/**
+	 * @return the bytes the arrays of the tree take, with the table of positions
+	 */
+	public long memoryBytes() {
+		return (long) move.length * NODE_BYTES + (long) pool.length * 4 + positionBytes();
+	}
+
+	/**
+	 * @return the bytes the nodes, the moves of the pool and the table of positions take, without the free room of the arrays
+	 */
+	public long usedBytes() {
+		return (long) size * NODE_BYTES + (long) poolSize * 4 + positionBytes();
+	}
+
+	/**
+	 * @return the bytes of the table of positions, fixed by its capacity
+	 */
+	public long positionBytes() {
+		return positionKeys == null ? 0 : (long) positionKeys.length() * POSITION_BYTES;
+	}
+
+	/**
+	 * @param parentNode the parent of the new node
+	 * @param nodeMove the move from the parent to the node
+	 * @return the id of the new node, NONE if a shared tree is full
+	 */
+	private synchronized int newNode(int parentNode, int nodeMove) {
+		if (size == move.length) {
+			if (shared)
+				return NONE;
+			grow(move.length * 2);
+		}
+		int node = size++;
+		visits.set(node, 0);	// the node may be one promote dropped
+		reciprocal[node] = 0;
+		value.set(node, 0);
+		amafVisits.set(node, 0);
+		amafValue.set(node, 0);
+		childCount[node] = 0;
+		move[node] = nodeMove;
+		parent[node] = parentNode;
+		firstChild.set(node, NONE);
+		nextSibling[node] = NONE;
+		proven[node] = 0;
+		untried[node] = NONE;
+		position[node] = NONE;
+		return node;
+	}
+
+	/**
+	 * @param n the ints needed
+	 * @return where they start in the pool, NONE if a shared tree is full
+	 */
+	private synchronized int allocatePool(int n) {
+		if (poolSize + n > pool.length) {
+			if (shared)
+				return NONE;
+			pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + n));
+		}
+		int start = poolSize;
+		poolSize += n;
+		return start;
+	}
+
+	private void allocate(int capacity) {
+		visits = new AtomicIntegerArray(capacity);
+		reciprocal = new double[capacity];
+		value = new AtomicLongArray(capacity);
+		amafVisits = new AtomicIntegerArray(capacity);
+		amafValue = new AtomicLongArray(capacity);
+		move = new int[capacity];
+		parent = new int[capacity];
+		firstChild = new AtomicIntegerArray(capacity);
+		nextSibling = new int[capacity];
+		childCount = new int[capacity];
+		proven = new int[capacity];
+		untried = new int[capacity];
+		position = new int[capacity];
+		renumber = new int[capacity];
+	}
+
+	private void grow(int capacity) {
+		AtomicIntegerArray oldVisits = visits;
+		double[] oldReciprocal = reciprocal;
+		AtomicLongArray oldValue = value;
+		AtomicIntegerArray oldAmafVisits = amafVisits;
+		AtomicLongArray oldAmafValue = amafValue;
+		AtomicIntegerArray oldFirstChild = firstChild;
+		int[] oldMove = move;
+		int[] oldParent = parent;
+		int[] oldNextSibling = nextSibling;
+		int[] oldChildCount = childCount;
+		int[] oldProven = proven;
+		int[] oldUntried = untried;
+		int[] oldPosition = position;
+		allocate(capacity);
+		for (int i = 0; i < size; i++) {
+			visits.set(i, oldVisits.get(i));
+			value.set(i, oldValue.get(i));
+			amafVisits.set(i, oldAmafVisits.get(i));
+			amafValue.set(i, oldAmafValue.get(i));
+			firstChild.set(i, oldFirstChild.get(i));
+		}
+		System.arraycopy(oldReciprocal, 0, reciprocal, 0, size);
+		System.arraycopy(oldMove, 0, move, 0, size);
+		System.arraycopy(oldParent, 0, parent, 0, size);
+		System.arraycopy(oldNextSibling, 0, nextSibling, 0, size);
+		System.arraycopy(oldChildCount, 0, childCount, 0, size);
+		System.arraycopy(oldProven, 0, proven, 0, size);
+		System.arraycopy(oldUntried, 0, untried, 0, size);
+		System.arraycopy(oldPosition, 0, position, 0, size);
+	}
 }
@@ -1,13 +1,15 @@
 package monteCarlo;
 
-import java.util.ArrayList;
 import java.util.Random;
 
+import bitboard.Move;
+import bitboard.Position;
+
 
 public class World
 {
 	MCTS no1;
-	private String[][] board = null;
+	private Position board = null;
 	int scoreBlack = 0;
 	int scoreWhite = 0;
 	public int getMyColor() {
@@ -17,10 +19,11 @@ public class World
 	private int rows = 7;
 	private int columns = 5;
 	private int myColor = 0;
-	private ArrayList<String> availableMoves = null;
+	private int[] availableMoves = null;
+	private int nAvailableMoves = 0;
 	
 	
-	public String[][] getBoard() {
+	public Position getBoard() {
 		return board;
 	}
 
@@ -32,10 +35,14 @@ public class World
 		return columns;
 	}
 
-	public ArrayList<String> getAvailableMoves() {
+	public int[] getAvailableMoves() {
 		return availableMoves;
 	}
 
+	public int getNumberOfAvailableMoves() {
+		return nAvailableMoves;
+	}
+
 	private int rookBlocks = 3;		// rook can move towards <rookBlocks> blocks in any vertical or horizontal direction
 	private int nTurns = 0;
 	private int nBranches = 0;
@@ -43,7 +50,7 @@ public class World
 	
 	public World()
 	{
-		board = new String[rows][columns];
+		board = new Position();
 		
 		/* represent the board
 		
@@ -56,50 +63,45 @@ public class World
 		WP|WR|WK|WR|WP
 		*/
 		
-		// initialization of the board
-		for(int i=0; i<rows; i++)
-			for(int j=0; j<columns; j++)
-				board[i][j] = " ";
-		
 		// setting the black player's chess parts
 		
 		// black pawns
 		for(int j=0; j<columns; j++)
-			board[1][j] = "BP";
+			board.put(1, j, Position.BLACK_PAWN);
 		
-		board[0][0] = "BP";
-		board[0][columns-1] = "BP";
+		board.put(0, 0, Position.BLACK_PAWN);
+		board.put(0, columns-1, Position.BLACK_PAWN);
 		
 		// black rooks
-		board[0][1] = "BR";
-		board[0][columns-2] = "BR";
+		board.put(0, 1, Position.BLACK_ROOK);
+		board.put(0, columns-2, Position.BLACK_ROOK);
 		
 		// black king
-		board[0][columns/2] = "BK";
+		board.put(0, columns/2, Position.BLACK_KING);
 		
 		// setting the white player's chess parts
 		
 		// white pawns
 		for(int j=0; j<columns; j++)
-			board[rows-2][j] = "WP";
+			board.put(rows-2, j, Position.WHITE_PAWN);
 		
-		board[rows-1][0] = "WP";
-		board[rows-1][columns-1] = "WP";
+		board.put(rows-1, 0, Position.WHITE_PAWN);
+		board.put(rows-1, columns-1, Position.WHITE_PAWN);
 		
 		// white rooks
-		board[rows-1][1] = "WR";
-		board[rows-1][columns-2] = "WR";
+		board.put(rows-1, 1, Position.WHITE_ROOK);
+		board.put(rows-1, columns-2, Position.WHITE_ROOK);
 		
 		// white king
-		board[rows-1][columns/2] = "WK";
+		board.put(rows-1, columns/2, Position.WHITE_KING);
 		
 		// setting the prizes
 		for(int j=0; j<columns; j++)
-			board[rows/2][j] = "P";
+			board.put(rows/2, j, Position.PRIZE);
 		
 		no1 = new MCTS(this);
 		
-		availableMoves = new ArrayList<String>();
+		availableMoves = new int[Move.MAX_MOVES];
 	}
 	
 	public void setMyColor(int myColor)
@@ -107,443 +109,44 @@ public class World
 		this.myColor = myColor;
 	}
 	
-	public String selectAction()
+	/**
+	 * @param timeBudget the milliseconds the search may use for every move
+	 */
+	public void setTimeBudget(long timeBudget)
+	{
+		no1.setTimeBudget(timeBudget);
+	}
+	
+	public int selectAction()
 	{
-		availableMoves = new ArrayList<String>();
-				
 		if(myColor == 0)		// I am the white player
-			this.whiteMoves(this.board, this.availableMoves);
+			nAvailableMoves = this.whiteMoves(this.board, this.availableMoves);
 		else					// I am the black player
-			this.blackMoves(this.board, this.availableMoves);
+			nAvailableMoves = this.blackMoves(this.board, this.availableMoves);
 		
 		// keeping track of the branch factor
 		nTurns++;
-		nBranches += availableMoves.size();
+		nBranches += nAvailableMoves;
 		
 		return no1.findNextMoveMonteCarlo(board, myColor);
 	}
 	
-	public void whiteMoves(String [][] board, ArrayList<String> availableMoves)
+	public int whiteMoves(Position board, int[] availableMoves)
 	{
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-				
-		for(int i=0; i<rows; i++)
-		{
-			for(int j=0; j<columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-				
-				// if it there is not a white chess part in this position then keep on searching
-				if(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-				
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-				
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-					
-					// check if it can move one vertical position ahead
-					firstLetter = Character.toString(board[i-1][j].charAt(0));
-					
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i-1) + Integer.toString(j);
-						
-						availableMoves.add(move);
-					}
-					
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j-1].charAt(0));						
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									   Integer.toString(i-1) + Integer.toString(j-1);
-								
-							availableMoves.add(move);
-						}											
-					}
-					
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=0)
-					{
-						firstLetter = Character.toString(board[i-1][j+1].charAt(0));
-						if(!(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							
-							move = Integer.toString(i) + Integer.toString(j) + 
-									   Integer.toString(i-1) + Integer.toString(j+1);							
-							availableMoves.add(move);
-						}
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-						
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-						
-						if(firstLetter.equals("W"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i-(k+1)) + Integer.toString(j);
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-						
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-						
-						if(firstLetter.equals("W"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i+(k+1)) + Integer.toString(j);
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-						
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-						
-						if(firstLetter.equals("W"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i) + Integer.toString(j-(k+1));
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-						
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-						
-						if(firstLetter.equals("W"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i) + Integer.toString(j+(k+1));
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("B") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-						
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i-1) + Integer.toString(j);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-						
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i+1) + Integer.toString(j);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-						
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i) + Integer.toString(j-1);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-						
-						if(!firstLetter.equals("W"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i) + Integer.toString(j+1);
-								
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
+		return board.whiteMoves(availableMoves);
 	}
 	
-	public void blackMoves(String [][] board, ArrayList<String> availableMoves)
+	public int blackMoves(Position board, int[] availableMoves)
 	{
-		String firstLetter = "";
-		String secondLetter = "";
-		String move = "";
-				
-		for(int i=0; i<rows; i++)
-		{
-			for(int j=0; j<columns; j++)
-			{
-				firstLetter = Character.toString(board[i][j].charAt(0));
-				
-				// if it there is not a black chess part in this position then keep on searching
-				if(firstLetter.equals("W") || firstLetter.equals(" ") || firstLetter.equals("P"))
-					continue;
-				
-				// check the kind of the white chess part
-				secondLetter = Character.toString(board[i][j].charAt(1));
-				
-				if(secondLetter.equals("P"))	// it is a pawn
-				{
-					
-					// check if it can move one vertical position ahead
-					firstLetter = Character.toString(board[i+1][j].charAt(0));
-					
-					if(firstLetter.equals(" ") || firstLetter.equals("P"))
-					{
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i+1) + Integer.toString(j);
-						
-						availableMoves.add(move);
-					}
-					
-					// check if it can move crosswise to the left
-					if(j!=0 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j-1].charAt(0));
-						
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									   Integer.toString(i+1) + Integer.toString(j-1);
-								
-							availableMoves.add(move);
-						}																	
-					}
-					
-					// check if it can move crosswise to the right
-					if(j!=columns-1 && i!=rows-1)
-					{
-						firstLetter = Character.toString(board[i+1][j+1].charAt(0));
-						
-						if(!(firstLetter.equals("B") || firstLetter.equals(" ") || firstLetter.equals("P"))) {
-							move = Integer.toString(i) + Integer.toString(j) + 
-									   Integer.toString(i+1) + Integer.toString(j+1);
-								
-							availableMoves.add(move);
-						}
-							
-						
-						
-					}
-				}
-				else if(secondLetter.equals("R"))	// it is a rook
-				{
-					// check if it can move upwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i-(k+1)) < 0)
-							break;
-						
-						firstLetter = Character.toString(board[i-(k+1)][j].charAt(0));
-						
-						if(firstLetter.equals("B"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i-(k+1)) + Integer.toString(j);
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check if it can move downwards
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((i+(k+1)) == rows)
-							break;
-						
-						firstLetter = Character.toString(board[i+(k+1)][j].charAt(0));
-						
-						if(firstLetter.equals("B"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i+(k+1)) + Integer.toString(j);
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check if it can move on the left
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j-(k+1)) < 0)
-							break;
-						
-						firstLetter = Character.toString(board[i][j-(k+1)].charAt(0));
-						
-						if(firstLetter.equals("B"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i) + Integer.toString(j-(k+1));
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-					
-					// check of it can move on the right
-					for(int k=0; k<rookBlocks; k++)
-					{
-						if((j+(k+1)) == columns)
-							break;
-						
-						firstLetter = Character.toString(board[i][j+(k+1)].charAt(0));
-						
-						if(firstLetter.equals("B"))
-							break;
-						
-						move = Integer.toString(i) + Integer.toString(j) + 
-							   Integer.toString(i) + Integer.toString(j+(k+1));
-						
-						availableMoves.add(move);
-						
-						// prevent detouring a chesspart to attack the other
-						if(firstLetter.equals("W") || firstLetter.equals("P"))
-							break;
-					}
-				}
-				else // it is the king
-				{
-					// check if it can move upwards
-					if((i-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i-1][j].charAt(0));
-						
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i-1) + Integer.toString(j);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move downwards
-					if((i+1) < rows)
-					{
-						firstLetter = Character.toString(board[i+1][j].charAt(0));
-						
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i+1) + Integer.toString(j);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move on the left
-					if((j-1) >= 0)
-					{
-						firstLetter = Character.toString(board[i][j-1].charAt(0));
-						
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i) + Integer.toString(j-1);
-								
-							availableMoves.add(move);	
-						}
-					}
-					
-					// check if it can move on the right
-					if((j+1) < columns)
-					{
-						firstLetter = Character.toString(board[i][j+1].charAt(0));
-						
-						if(!firstLetter.equals("B"))
-						{
-							move = Integer.toString(i) + Integer.toString(j) + 
-								   Integer.toString(i) + Integer.toString(j+1);
-								
-							availableMoves.add(move);	
-						}
-					}
-				}			
-			}	
-		}
+		return board.blackMoves(availableMoves);
 	}
 	
-	private String selectRandomAction()
+	private int selectRandomAction()
 	{		
 		Random ran = new Random();
-		int x = ran.nextInt(availableMoves.size());
+		int x = ran.nextInt(nAvailableMoves);
 		
-		return availableMoves.get(x);
+		return availableMoves[x];
 	}
 	
 	public double getAvgBFactor()
@@ -553,28 +156,22 @@ public class World
 	
 	public void makeMove(int x1, int y1, int x2, int y2, int prizeX, int prizeY)
 	{
-		String chesspart = Character.toString(board[x1][y1].charAt(1));
-		boolean pawnLastRow = false;
-		
-		// check if it is a move that has made a move to the last line
-		if(chesspart.equals("P"))
-			if( (x1==rows-2 && x2==rows-1) || (x1==1 && x2==0) )
-			{
-				board[x2][y2] = " ";	// in a case an opponent's chess part has just been captured
-				board[x1][y1] = " ";
-				pawnLastRow = true;
-			}
+		int from = Position.square(x1, y1);
+		int to = Position.square(x2, y2);
 		
-		// otherwise
-		if(!pawnLastRow)
-		{
-			board[x2][y2] = board[x1][y1];
-			board[x1][y1] = " ";
-		}
+		// a pawn that has made a move to the last line leaves the board, makeMove of the board takes care of it
+		int move = Move.encode(from, to, board.pieceAt(from), board.pieceAt(to), 0);
+		board.makeMove(move);
 		
 		// check if a prize has been added in the game
 		if(prizeX != noPrize)
-			board[prizeX][prizeY] = "P";
+			board.put(prizeX, prizeY, Position.PRIZE);
+		
+		// the search tree follows the game
+		no1.advance(move, prizeX != noPrize);
+		
+		if(Position.debugHash)
+			board.verifyKey();
 	}
 	
 }